@@ -0,0 +1,40 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.hogwarts.school.model.Faculty;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FacultyServiceBenchmark {
+
+    @Benchmark
+    public Faculty findFacultyByName(SeededSchool school) {
+        return school.facultyService.findFacultyByNameOrColorIgnoreCase(SeededSchool.facultyName(3).toUpperCase());
+    }
+
+    @Benchmark
+    public Faculty findFacultyByColor(SeededSchool school) {
+        return school.facultyService.findFacultyByNameOrColorIgnoreCase("зеленый");
+    }
+
+    @Benchmark
+    public Faculty findFacultyMissing(SeededSchool school) {
+        return school.facultyService.findFacultyByNameOrColorIgnoreCase("Нет такого факультета");
+    }
+
+    @Benchmark
+    public String findLongestFacultyName(SeededSchool school) {
+        return school.facultyService.findLongestFacultyName();
+    }
+}
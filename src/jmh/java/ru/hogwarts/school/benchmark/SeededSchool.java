@@ -0,0 +1,110 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.hogwarts.school.SchoolApplication;
+import ru.hogwarts.school.service.FacultyService;
+import ru.hogwarts.school.service.StudentImportService;
+import ru.hogwarts.school.service.StudentService;
+import ru.hogwarts.school.service.StudentStatisticsService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Контекст приложения на встроенной H2 (профиль test), заполненный {@code students} студентами
+ * и {@code students / 1000} факультетами (не меньше четырех). Данные вставляются через JDBC,
+ * после чего индексы в памяти перечитываются так же, как при старте приложения.
+ */
+@State(Scope.Benchmark)
+public class SeededSchool {
+
+    static final String[] FIRST_NAMES = {
+            "Гарри", "Гермиона", "Рон", "Драко", "Невилл", "Полумна", "Джинни", "Седрик", "Чжоу", "Симус"
+    };
+    static final String[] COLORS = {"Красный", "Зеленый", "Желтый", "Синий", "Серый", "Белый"};
+    static final int MIN_AGE = 16;
+    static final int AGES = 50;
+
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int students;
+
+    ConfigurableApplicationContext context;
+    JdbcTemplate jdbcTemplate;
+    StudentService studentService;
+    FacultyService facultyService;
+    StudentImportService studentImportService;
+    int faculties;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(SchoolApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.ru.hogwarts.school=WARN");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        studentService = context.getBean(StudentService.class);
+        facultyService = context.getBean(FacultyService.class);
+        studentImportService = context.getBean(StudentImportService.class);
+
+        faculties = Math.max(4, students / 1000);
+        seed();
+        reloadIndexes();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    static String facultyName(int i) {
+        return "Факультет " + i;
+    }
+
+    void reloadIndexes() {
+        facultyService.loadFacultyIndex();
+        studentService.loadStudentNameIndex();
+        context.getBean(StudentStatisticsService.class).loadStatistics();
+    }
+
+    private void seed() {
+        List<Object[]> facultyRows = new ArrayList<>(faculties);
+        for (int i = 1; i <= faculties; i++) {
+            facultyRows.add(new Object[]{i, facultyName(i), COLORS[i % COLORS.length]});
+        }
+        jdbcTemplate.batchUpdate("insert into faculty(id, name, color, version) values (?, ?, ?, 0)", facultyRows);
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= students; i++) {
+            batch.add(new Object[]{i, FIRST_NAMES[i % FIRST_NAMES.length] + " " + i,
+                    MIN_AGE + i % AGES, 1 + i % faculties});
+            if (batch.size() == BATCH_SIZE) {
+                insertStudents(batch);
+                batch.clear();
+            }
+        }
+        insertStudents(batch);
+
+        // Hibernate выдает id пачками из последовательностей, поэтому они сдвигаются за засеянные строки
+        jdbcTemplate.execute("alter sequence student_seq restart with " + (students + 1000));
+        jdbcTemplate.execute("alter sequence faculty_seq restart with " + (faculties + 1000));
+    }
+
+    private void insertStudents(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("insert into student(id, name, age, faculty_id, version) values (?, ?, ?, ?, 0)", batch);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.hogwarts.school.dto.StudentCreateRequest;
+import ru.hogwarts.school.dto.StudentImportResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает вставку {@value #ROWS} студентов через {@code POST /student/bulk}
+ * (пачки JDBC в транзакции на чанк) и через {@code addStudent} по одному.
+ * Результат приводится к одной строке; вставленные строки удаляются после каждой итерации.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StudentImportBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private int invocation;
+    private long seededMaxId;
+
+    @Setup(Level.Trial)
+    public void rememberSeededRows(SeededSchool school) {
+        seededMaxId = school.jdbcTemplate.queryForObject("select max(id) from student", Long.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeImportedRows(SeededSchool school) {
+        school.jdbcTemplate.update("delete from student where id > ?", seededMaxId);
+        school.reloadIndexes();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public StudentImportResult importInBulk(SeededSchool school) {
+        return school.studentImportService.importStudents(requests());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void addOneByOne(SeededSchool school, Blackhole blackhole) {
+        for (StudentCreateRequest request : requests()) {
+            blackhole.consume(school.studentService.addStudent(request.getName(), request.getAge(),
+                    request.getFaculty()));
+        }
+    }
+
+    private List<StudentCreateRequest> requests() {
+        int batch = ++invocation;
+        List<StudentCreateRequest> requests = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            StudentCreateRequest request = new StudentCreateRequest();
+            request.setName("Импорт " + batch + "-" + i);
+            request.setAge(SeededSchool.MIN_AGE + i % SeededSchool.AGES);
+            request.setFaculty(SeededSchool.facultyName(1 + i % 4));
+            requests.add(request);
+        }
+        return requests;
+    }
+}
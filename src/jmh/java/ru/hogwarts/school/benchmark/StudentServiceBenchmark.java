@@ -0,0 +1,45 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.hogwarts.school.dto.CursorPage;
+import ru.hogwarts.school.model.Student;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StudentServiceBenchmark {
+
+    private static final int AGE = 20;
+    private static final int PAGE_SIZE = 20;
+
+    @Benchmark
+    public CursorPage<Student> findStudentsByAge(SeededSchool school) {
+        return school.studentService.findStudentsByAge(AGE, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public CursorPage<Student> findStudentsByAgeBetween(SeededSchool school) {
+        return school.studentService.findStudentsByAgeBetween(AGE, AGE + 1, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<String> getStudentNamesStartingWith(SeededSchool school) {
+        return school.studentService.getStudentNamesStartingWith("Г");
+    }
+
+    @Benchmark
+    public double findAverageAgeByCalculating(SeededSchool school) {
+        return school.studentService.findAverageAgeByCalculating();
+    }
+}
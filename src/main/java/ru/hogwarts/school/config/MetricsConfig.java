@@ -0,0 +1,56 @@
+package ru.hogwarts.school.config;
+
+import io.micrometer.core.aop.CountedAspect;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+
+/**
+ * Включает обработку {@code @Timed} и {@code @Counted} на сервисах. Вызовы репозиториев
+ * Spring Boot измеряет сам (метрика {@code spring.data.repository.invocations}).
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "school.service";
+    public static final String SERVICE_ERRORS = "school.service.errors";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public CountedAspect countedAspect(MeterRegistry registry) {
+        return new CountedAspect(registry);
+    }
+
+    /**
+     * Попадания и промахи кэша второго уровня Hibernate ({@code cache.gets} и др. с тегом
+     * {@code cache}) берутся из статистики JCache, включенной в hibernate-cache.conf.
+     */
+    @Bean
+    public MeterBinder hibernateCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            RegionFactory regionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                    .getCache()
+                    .getRegionFactory();
+            if (regionFactory instanceof JCacheRegionFactory jCacheRegionFactory) {
+                CacheManager cacheManager = jCacheRegionFactory.getCacheManager();
+                for (String name : cacheManager.getCacheNames()) {
+                    JCacheMetrics.monitor(registry, cacheManager.getCache(name), Tags.of("cache.type", "hibernate"));
+                }
+            }
+        };
+    }
+}
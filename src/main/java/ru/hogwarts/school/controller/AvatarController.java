@@ -1,14 +1,20 @@
 package ru.hogwarts.school.controller;
 
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.http.HttpHeaders;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ru.hogwarts.school.dto.AvatarFile;
+import ru.hogwarts.school.dto.AvatarInfo;
+import ru.hogwarts.school.dto.AvatarPreviewStats;
 import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.service.AvatarPreviewService;
 import ru.hogwarts.school.service.AvatarService;
 
 import java.io.IOException;
@@ -19,9 +25,21 @@ import java.util.Map;
 public class AvatarController {
 
     private final AvatarService avatarService;
+    private final AvatarPreviewService avatarPreviewService;
 
-    public AvatarController(AvatarService avatarService) {
+    public AvatarController(AvatarService avatarService, AvatarPreviewService avatarPreviewService) {
         this.avatarService = avatarService;
+        this.avatarPreviewService = avatarPreviewService;
+    }
+
+    private ResponseEntity<Resource> fileResponse(AvatarFile file) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(file.getMediaType()))
+                .eTag(file.getETag());
+        if (file.getLastModified() >= 0) {
+            response.lastModified(file.getLastModified());
+        }
+        return response.body(file.getResource());
     }
 
     @PostMapping("/{studentId}")
@@ -31,27 +49,32 @@ public class AvatarController {
         return Map.of("id", avatar.getId());
     }
 
-    @GetMapping("/db/{studentId}")
-    public ResponseEntity<byte[]> getAvatarFromDB(@PathVariable Long studentId) {
-        Avatar avatar = avatarService.getAvatarFromDB(studentId);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(avatar.getMediaType()))
-                .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(avatar.getFileSize()))
-                .body(avatar.getData());
+    /**
+     * Оба адреса оставлены для совместимости: содержимое отдает хранилище из {@code avatar.store}.
+     */
+    @GetMapping({"/db/{studentId}", "/file/{studentId}"})
+    public ResponseEntity<Resource> getAvatar(@PathVariable Long studentId) throws IOException {
+        return fileResponse(avatarService.getAvatarContent(studentId));
+    }
+
+    @GetMapping("/preview/{studentId}")
+    public ResponseEntity<Resource> getAvatarPreview(@PathVariable Long studentId,
+                                                     @RequestParam(defaultValue = "128") int size) throws IOException {
+        return fileResponse(avatarService.getAvatarPreview(studentId, size));
     }
 
-    @GetMapping("/file/{studentId}")
-    public ResponseEntity<byte[]> getAvatarFromFile(@PathVariable Long studentId) throws IOException {
-        Avatar avatar = avatarService.getAvatarFromDB(studentId);
-        byte[] data = avatarService.getAvatarFromFile(studentId);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(avatar.getMediaType()))
-                .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(avatar.getFileSize()))
-                .body(data);
+    @GetMapping("/preview/stats")
+    public AvatarPreviewStats getAvatarPreviewStats() {
+        return avatarPreviewService.getStats();
     }
 
     @GetMapping("/all")
-    public Page<Avatar> getAvatars(@RequestParam int page, @RequestParam int size) {
-        return avatarService.getAvatars(PageRequest.of(page, size));
+    public Page<AvatarInfo> getAvatars(@RequestParam int page, @RequestParam int size) {
+        return avatarService.getAvatars(PageRequest.of(page, size, Sort.by("id")))
+                .map(avatar -> new AvatarInfo(avatar.getId(), avatar.getStudentId(), avatar.getMediaType(),
+                        avatar.getFileSize(), ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/avatar/file/{studentId}")
+                        .buildAndExpand(avatar.getStudentId())
+                        .toUriString()));
     }
 }
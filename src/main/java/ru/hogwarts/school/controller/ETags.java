@@ -0,0 +1,45 @@
+package ru.hogwarts.school.controller;
+
+import ru.hogwarts.school.dto.CursorPage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.ToLongFunction;
+
+/**
+ * Строгие ETag на основе {@code @Version}. Для одной сущности это id и версия, для страницы —
+ * SHA-256 от пар (id, версия) всех элементов и курсора следующей страницы. Версия меняется
+ * при любом изменении строки, поэтому эти данные однозначно определяют тело ответа, а пары
+ * можно прочитать проекцией без загрузки сущностей.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(long id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    static <T> String ofPage(CursorPage<T> page, ToLongFunction<T> id, ToLongFunction<T> version) {
+        MessageDigest digest = newDigest();
+        for (T item : page.getItems()) {
+            digest.update((id.applyAsLong(item) + ":" + version.applyAsLong(item) + ";")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        if (page.getNextCursor() != null) {
+            digest.update(page.getNextCursor().getBytes(StandardCharsets.UTF_8));
+        }
+        return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,20 +1,28 @@
 package ru.hogwarts.school.controller;
 
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.hogwarts.school.dto.BatchResult;
+import ru.hogwarts.school.dto.EntityVersion;
+import ru.hogwarts.school.dto.CursorPage;
 import ru.hogwarts.school.dto.FacultyCreateRequest;
 import ru.hogwarts.school.dto.FacultyEditRequest;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.service.FacultyService;
 
-import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/faculty")
 public class FacultyController {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
     private final FacultyService facultyService;
 
     public FacultyController(FacultyService facultyService) {
@@ -26,8 +34,20 @@ public class FacultyController {
     }
 
     @GetMapping("{id}")
-    public Faculty getFacultyInfo(@PathVariable Long id) {
-        return facultyService.findFaculty(id);
+    public ResponseEntity<Faculty> getFacultyInfo(@PathVariable Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(ETags.of(id, facultyService.findFacultyVersion(id)))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        Faculty faculty = facultyService.findFaculty(id);
+        return ResponseEntity.ok()
+                .eTag(ETags.of(faculty.getId(), faculty.getVersion()))
+                .body(faculty);
+    }
+
+    @GetMapping("/batch")
+    public BatchResult<Faculty> getFacultiesByIds(@RequestParam List<Long> ids) {
+        return facultyService.findFacultiesByIds(ids);
     }
 
     @PostMapping
@@ -38,7 +58,8 @@ public class FacultyController {
 
     @PutMapping
     public Faculty editFaculty(@Valid @RequestBody FacultyEditRequest request) {
-        return facultyService.editFaculty(request.getId(), request.getName(), request.getColor());
+        return facultyService.editFaculty(request.getId(), request.getName(), request.getColor(),
+                request.getVersion());
     }
 
     @DeleteMapping("{id}")
@@ -48,13 +69,29 @@ public class FacultyController {
     }
 
     @GetMapping
-    public Collection<Faculty> findFaculties(@RequestParam(required = false) String color) {
-        return facultyService.findFacultiesByColor(color);
+    public ResponseEntity<CursorPage<Faculty>> findFaculties(
+            @RequestParam(required = false) String color,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            CursorPage<EntityVersion> versions = facultyService.findFacultyVersionsByColor(color, cursor, limit);
+            if (request.checkNotModified(ETags.ofPage(versions, EntityVersion::getId, EntityVersion::getVersion))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+        }
+        CursorPage<Faculty> page = facultyService.findFacultiesByColor(color, cursor, limit);
+        return ResponseEntity.ok()
+                .eTag(ETags.ofPage(page, Faculty::getId, Faculty::getVersion))
+                .body(page);
     }
 
     @GetMapping("/search")
-    public Collection<Faculty> findFacultiesByNameOrColorPartial(@RequestParam String param) {
-        return facultyService.findFacultiesByNameOrColorPartial(param);
+    public CursorPage<Faculty> findFacultiesByNameOrColorPartial(
+            @RequestParam String param,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        return facultyService.findFacultiesByNameOrColorPartial(param, cursor, limit);
     }
 
     @GetMapping("{id}/students")
@@ -0,0 +1,27 @@
+package ru.hogwarts.school.controller;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.hogwarts.school.dto.SearchMatch;
+import ru.hogwarts.school.service.SearchService;
+
+import java.util.List;
+
+@RestController
+public class SearchController {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final SearchService searchService;
+
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @GetMapping("/search")
+    public List<SearchMatch> search(@RequestParam String query,
+                                    @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        return searchService.search(query, limit);
+    }
+}
@@ -1,18 +1,35 @@
 package ru.hogwarts.school.controller;
 
 import jakarta.validation.Valid;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.hogwarts.school.dto.BatchResult;
+import ru.hogwarts.school.dto.CursorPage;
 import ru.hogwarts.school.dto.StudentCreateRequest;
 import ru.hogwarts.school.dto.StudentEditRequest;
+import ru.hogwarts.school.dto.StudentImportResult;
+import ru.hogwarts.school.dto.StudentStatisticsResponse;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.service.FacultyService;
+import ru.hogwarts.school.service.RosterExportService;
+import ru.hogwarts.school.service.StudentExportService;
+import ru.hogwarts.school.service.StudentImportService;
 import ru.hogwarts.school.service.StudentService;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import org.springframework.data.domain.PageRequest;
@@ -22,12 +39,22 @@ import org.springframework.web.bind.annotation.GetMapping;
 @RequestMapping("/student")
 public class StudentController {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
     private final StudentService studentService;
     private final FacultyService facultyService;
+    private final StudentImportService studentImportService;
+    private final RosterExportService rosterExportService;
+    private final StudentExportService studentExportService;
 
-    public StudentController(StudentService studentService, FacultyService facultyService) {
+    public StudentController(StudentService studentService, FacultyService facultyService,
+                             StudentImportService studentImportService, RosterExportService rosterExportService,
+                             StudentExportService studentExportService) {
         this.studentService = studentService;
         this.facultyService = facultyService;
+        this.studentImportService = studentImportService;
+        this.rosterExportService = rosterExportService;
+        this.studentExportService = studentExportService;
     }
 
     private Map<String, String> message(String msg) {
@@ -35,8 +62,20 @@ public class StudentController {
     }
 
     @GetMapping("{id}")
-    public Student getStudentInfo(@PathVariable Long id) {
-        return studentService.findStudent(id);
+    public CompletableFuture<ResponseEntity<Student>> getStudentInfo(@PathVariable Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(ETags.of(id, studentService.findStudentVersion(id)))) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+        }
+        return studentService.findStudentAsync(id)
+                .thenApply(student -> ResponseEntity.ok()
+                        .eTag(ETags.of(student.getId(), student.getVersion()))
+                        .body(student));
+    }
+
+    @GetMapping("/batch")
+    public BatchResult<Student> getStudentsByIds(@RequestParam List<Long> ids) {
+        return studentService.findStudentsByIds(ids);
     }
 
     @PostMapping
@@ -45,9 +84,20 @@ public class StudentController {
         return studentService.addStudent(request.getName(), request.getAge(), request.getFaculty());
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public StudentImportResult importStudents(@RequestBody List<StudentCreateRequest> requests) {
+        return studentImportService.importStudents(requests);
+    }
+
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public StudentImportResult importStudentsCsv(InputStream body) throws IOException {
+        return studentImportService.importCsv(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
     @PutMapping
     public Student editStudent(@Valid @RequestBody StudentEditRequest request) {
-        return studentService.editStudent(request.getId(), request.getName(), request.getAge(), request.getFaculty());
+        return studentService.editStudent(request.getId(), request.getName(), request.getAge(), request.getFaculty(),
+                request.getVersion());
     }
 
     @DeleteMapping("{id}")
@@ -57,52 +107,75 @@ public class StudentController {
     }
 
     @GetMapping
-    public Collection<Student> findStudents(@RequestParam(required = false) Integer age) {
-        return studentService.findStudentsByAge(age);
+    public CursorPage<Student> findStudents(@RequestParam(required = false) Integer age,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        return studentService.findStudentsByAge(age, cursor, limit);
     }
 
     @GetMapping("/ageBetween")
-    public Collection<Student> findStudentsByAgeBetween(@RequestParam int min, @RequestParam int max) {
-        return studentService.findStudentsByAgeBetween(min, max);
+    public CompletableFuture<CursorPage<Student>> findStudentsByAgeBetween(
+            @RequestParam int min, @RequestParam int max,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        return studentService.findStudentsByAgeBetweenAsync(min, max, cursor, limit);
     }
 
     @GetMapping("{id}/faculty")
-    public Faculty getFacultyByStudentId(@PathVariable Long id) {
-        return studentService.getFacultyByStudentId(id);
+    public CompletableFuture<Faculty> getFacultyByStudentId(@PathVariable Long id) {
+        return studentService.getFacultyByStudentIdAsync(id);
     }
 
     @GetMapping("/count")
-    public Long getStudentsCount() {
-        return studentService.countAllStudents();
+    public CompletableFuture<Long> getStudentsCount() {
+        return studentService.countAllStudentsAsync();
     }
 
     @GetMapping("/averageAge")
-    public Double getAverageAge() {
-        return studentService.findAverageAge();
+    public CompletableFuture<Double> getAverageAge() {
+        return studentService.findAverageAgeAsync();
+    }
+
+    @GetMapping("/statistics")
+    public CompletableFuture<StudentStatisticsResponse> getStatistics() {
+        return studentService.getStatisticsAsync();
     }
 
     @GetMapping("/lastFive")
-    public List<Student> getLastFiveStudents() {
-        return studentService.findLastFiveStudents(PageRequest.of(0, 5));
+    public CompletableFuture<List<Student>> getLastFiveStudents() {
+        return studentService.findLastFiveStudentsAsync(PageRequest.of(0, 5));
     }
 
     @GetMapping("/names/startWith")
-    public List<String> getStudentNamesStartWith(@RequestParam String letter) {
-        return studentService.getStudentNamesStartingWith(letter);
+    public List<String> getStudentNamesStartWith(@RequestParam String letter,
+                                                 @RequestParam(required = false) Integer limit) {
+        if (limit == null) {
+            return studentService.getStudentNamesStartingWith(letter);
+        }
+        return studentService.getStudentNamesStartingWith(letter, limit);
     }
 
     @GetMapping("/averageAgeCalculated")
-    public Double getAverageAgeCalculated() {
-        return studentService.findAverageAgeByCalculating();
-    }
-
-    @GetMapping("/print-parallel")
-    public void printNamesParallel() {
-        studentService.printStudentNamesInParallel();
-    }
-
-    @GetMapping("/print-synchronized")
-    public void printSynchronized() {
-        studentService.printStudentNamesSynchronized();
+    public CompletableFuture<Double> getAverageAgeCalculated() {
+        return studentService.findAverageAgeByCalculatingAsync();
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportStudents(@RequestParam(defaultValue = "ndjson") String format) {
+        StudentExportService.Format exportFormat = StudentExportService.Format.parse(format);
+        StreamingResponseBody body = out -> studentExportService.exportAll(exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType() + ";charset=UTF-8"))
+                .body(body);
+    }
+
+    @GetMapping("/roster")
+    public ResponseEntity<StreamingResponseBody> exportRoster() {
+        StreamingResponseBody body = rosterExportService::exportRoster;
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("roster.csv").build().toString())
+                .body(body);
     }
 }
@@ -0,0 +1,34 @@
+package ru.hogwarts.school.dto;
+
+import org.springframework.core.io.Resource;
+
+public class AvatarFile {
+
+    private final Resource resource;
+    private final String mediaType;
+    private final String eTag;
+    private final long lastModified;
+
+    public AvatarFile(Resource resource, String mediaType, String eTag, long lastModified) {
+        this.resource = resource;
+        this.mediaType = mediaType;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    public Resource getResource() {
+        return resource;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+}
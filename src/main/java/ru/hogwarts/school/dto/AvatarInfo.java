@@ -0,0 +1,38 @@
+package ru.hogwarts.school.dto;
+
+public class AvatarInfo {
+
+    private final Long id;
+    private final Long studentId;
+    private final String mediaType;
+    private final long fileSize;
+    private final String url;
+
+    public AvatarInfo(Long id, Long studentId, String mediaType, long fileSize, String url) {
+        this.id = id;
+        this.studentId = studentId;
+        this.mediaType = mediaType;
+        this.fileSize = fileSize;
+        this.url = url;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.hogwarts.school.dto;
+
+/**
+ * Проекция аватара без бинарного содержимого: позволяет читать метаданные,
+ * не затрагивая колонку {@code data}.
+ */
+public interface AvatarMetadata {
+
+    Long getId();
+
+    Long getStudentId();
+
+    String getFilePath();
+
+    String getMediaType();
+
+    long getFileSize();
+
+    String getChecksum();
+}
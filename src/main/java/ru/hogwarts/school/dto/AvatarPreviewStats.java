@@ -0,0 +1,51 @@
+package ru.hogwarts.school.dto;
+
+public class AvatarPreviewStats {
+
+    private final int queueDepth;
+    private final int activeTasks;
+    private final long completed;
+    private final long failed;
+    private final long rejected;
+    private final double averageProcessingMillis;
+    private final double maxProcessingMillis;
+
+    public AvatarPreviewStats(int queueDepth, int activeTasks, long completed, long failed, long rejected,
+                              double averageProcessingMillis, double maxProcessingMillis) {
+        this.queueDepth = queueDepth;
+        this.activeTasks = activeTasks;
+        this.completed = completed;
+        this.failed = failed;
+        this.rejected = rejected;
+        this.averageProcessingMillis = averageProcessingMillis;
+        this.maxProcessingMillis = maxProcessingMillis;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getActiveTasks() {
+        return activeTasks;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public double getAverageProcessingMillis() {
+        return averageProcessingMillis;
+    }
+
+    public double getMaxProcessingMillis() {
+        return maxProcessingMillis;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.hogwarts.school.dto;
+
+import java.util.List;
+
+/**
+ * Ответ пакетного запроса по списку id: найденные записи в порядке запроса
+ * (повторы id учитываются один раз) и id, которых нет в базе.
+ */
+public class BatchResult<T> {
+
+    private final List<T> items;
+    private final List<Long> missingIds;
+
+    public BatchResult(List<T> items, List<Long> missingIds) {
+        this.items = items;
+        this.missingIds = missingIds;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+}
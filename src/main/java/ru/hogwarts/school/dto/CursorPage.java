@@ -0,0 +1,30 @@
+package ru.hogwarts.school.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Страница при постраничной выдаче по курсору. {@code nextCursor} передается в следующий
+ * запрос как есть и отсутствует на последней странице.
+ */
+public class CursorPage<T> {
+
+    private final List<T> items;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
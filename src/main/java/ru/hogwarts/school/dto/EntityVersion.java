@@ -0,0 +1,12 @@
+package ru.hogwarts.school.dto;
+
+/**
+ * Id и версия строки без остальных колонок: по ним считается ETag страницы,
+ * не загружая сами сущности.
+ */
+public interface EntityVersion {
+
+    Long getId();
+
+    Long getVersion();
+}
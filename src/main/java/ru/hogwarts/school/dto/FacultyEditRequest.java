@@ -12,6 +12,9 @@ public class FacultyEditRequest {
     @NotBlank(message = "Цвет факультета обязателен")
     private String color;
 
+    /** Версия, которую видел клиент; если задана и устарела, изменение отклоняется. */
+    private Long version;
+
     public FacultyEditRequest() {}
 
     public Long getId() {
@@ -37,4 +40,12 @@ public class FacultyEditRequest {
     public void setColor(String color) {
         this.color = color;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
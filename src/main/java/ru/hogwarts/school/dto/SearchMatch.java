@@ -0,0 +1,38 @@
+package ru.hogwarts.school.dto;
+
+public class SearchMatch {
+
+    private final String type;
+    private final long id;
+    private final String field;
+    private final String value;
+    private final int rank;
+
+    public SearchMatch(String type, long id, String field, String value, int rank) {
+        this.type = type;
+        this.id = id;
+        this.field = field;
+        this.value = value;
+        this.rank = rank;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+}
@@ -0,0 +1,8 @@
+package ru.hogwarts.school.dto;
+
+public interface StudentAgeCount {
+
+    Integer getAge();
+
+    Long getStudents();
+}
@@ -15,6 +15,9 @@ public class StudentEditRequest {
     @NotBlank(message = "Факультет (имя или цвет) обязателен")
     private String faculty;
 
+    /** Версия, которую видел клиент; если задана и устарела, изменение отклоняется. */
+    private Long version;
+
     public StudentEditRequest() {}
 
     public Long getId() {
@@ -48,4 +51,12 @@ public class StudentEditRequest {
     public void setFaculty(String faculty) {
         this.faculty = faculty;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.hogwarts.school.dto;
+
+public class StudentImportError {
+
+    private final int row;
+    private final String name;
+    private final String message;
+
+    public StudentImportError(int row, String name, String message) {
+        this.row = row;
+        this.name = name;
+        this.message = message;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
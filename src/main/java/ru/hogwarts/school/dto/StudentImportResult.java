@@ -0,0 +1,37 @@
+package ru.hogwarts.school.dto;
+
+import java.util.List;
+
+public class StudentImportResult {
+
+    private final int total;
+    private final int imported;
+    private final List<StudentImportError> errors;
+    private final boolean errorsTruncated;
+
+    public StudentImportResult(int total, int imported, List<StudentImportError> errors, boolean errorsTruncated) {
+        this.total = total;
+        this.imported = imported;
+        this.errors = errors;
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public List<StudentImportError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * true, если ошибочных строк больше, чем вернулось в {@link #getErrors()}.
+     */
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+}
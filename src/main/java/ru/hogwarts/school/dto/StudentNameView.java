@@ -0,0 +1,8 @@
+package ru.hogwarts.school.dto;
+
+public interface StudentNameView {
+
+    Long getId();
+
+    String getName();
+}
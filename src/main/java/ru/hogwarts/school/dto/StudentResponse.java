@@ -2,15 +2,14 @@ package ru.hogwarts.school.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.Collection;
-import ru.hogwarts.school.model.Student;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class StudentResponse {
 
-    private Collection<Student> students;
+    private Collection<StudentSummary> students;
     private String message;
 
-    public StudentResponse(Collection<Student> students) {
+    public StudentResponse(Collection<StudentSummary> students) {
         this.students = students;
         this.message = null;
     }
@@ -20,7 +19,7 @@ public class StudentResponse {
         this.message = message;
     }
 
-    public Collection<Student> getStudents() {
+    public Collection<StudentSummary> getStudents() {
         return students;
     }
 
@@ -0,0 +1,12 @@
+package ru.hogwarts.school.dto;
+
+public interface StudentRosterRow {
+
+    Long getId();
+
+    String getName();
+
+    Integer getAge();
+
+    String getFaculty();
+}
@@ -0,0 +1,32 @@
+package ru.hogwarts.school.dto;
+
+public class StudentStatisticsResponse {
+
+    private final long count;
+    private final Double averageAge;
+    private final Integer minAge;
+    private final Integer maxAge;
+
+    public StudentStatisticsResponse(long count, Double averageAge, Integer minAge, Integer maxAge) {
+        this.count = count;
+        this.averageAge = averageAge;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Double getAverageAge() {
+        return averageAge;
+    }
+
+    public Integer getMinAge() {
+        return minAge;
+    }
+
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+}
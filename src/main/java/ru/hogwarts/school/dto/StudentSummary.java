@@ -0,0 +1,10 @@
+package ru.hogwarts.school.dto;
+
+public interface StudentSummary {
+
+    Long getId();
+
+    String getName();
+
+    Integer getAge();
+}
@@ -0,0 +1,44 @@
+package ru.hogwarts.school.dto;
+
+public class SumResult {
+
+    private final String method;
+    private final long n;
+    private final int parallelism;
+    private final long result;
+    private final double elapsedMillis;
+    private final int threadsUsed;
+
+    public SumResult(String method, long n, int parallelism, long result, double elapsedMillis, int threadsUsed) {
+        this.method = method;
+        this.n = n;
+        this.parallelism = parallelism;
+        this.result = result;
+        this.elapsedMillis = elapsedMillis;
+        this.threadsUsed = threadsUsed;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public long getN() {
+        return n;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getResult() {
+        return result;
+    }
+
+    public double getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public int getThreadsUsed() {
+        return threadsUsed;
+    }
+}
@@ -0,0 +1,30 @@
+package ru.hogwarts.school.index;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import ru.hogwarts.school.model.Faculty;
+
+/**
+ * Держит индексы факультетов в актуальном состоянии при любой записи
+ * факультета через JPA, в том числе напрямую через репозиторий.
+ */
+public class FacultyIndexListener {
+
+    private final IndexUpdates indexUpdates;
+
+    public FacultyIndexListener(IndexUpdates indexUpdates) {
+        this.indexUpdates = indexUpdates;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Faculty faculty) {
+        indexUpdates.facultySaved(faculty);
+    }
+
+    @PostRemove
+    public void onRemove(Faculty faculty) {
+        indexUpdates.facultyRemoved(faculty.getId());
+    }
+}
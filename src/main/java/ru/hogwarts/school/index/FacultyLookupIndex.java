@@ -0,0 +1,95 @@
+package ru.hogwarts.school.index;
+
+import org.springframework.stereotype.Component;
+import ru.hogwarts.school.model.Faculty;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Индекс факультетов по имени и цвету без учета регистра. Чтение не блокируется,
+ * запись синхронизирована: факультеты меняются редко. При нескольких совпадениях
+ * возвращается факультет с наименьшим id, совпадение по имени важнее совпадения по цвету.
+ */
+@Component
+public class FacultyLookupIndex {
+
+    private final Map<Long, Faculty> facultiesById = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Long>> idsByName = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Long>> idsByColor = new ConcurrentHashMap<>();
+
+    public Faculty find(String nameOrColor) {
+        if (nameOrColor == null) {
+            return null;
+        }
+        String key = normalize(nameOrColor);
+        Faculty faculty = first(idsByName.get(key));
+        return faculty != null ? faculty : first(idsByColor.get(key));
+    }
+
+    public synchronized void put(Faculty faculty) {
+        remove(faculty.getId());
+        Faculty copy = new Faculty(faculty.getId(), faculty.getName(), faculty.getColor());
+        facultiesById.put(copy.getId(), copy);
+        addId(idsByName, copy.getName(), copy.getId());
+        addId(idsByColor, copy.getColor(), copy.getId());
+    }
+
+    public synchronized void remove(long id) {
+        Faculty removed = facultiesById.remove(id);
+        if (removed != null) {
+            removeId(idsByName, removed.getName(), id);
+            removeId(idsByColor, removed.getColor(), id);
+        }
+    }
+
+    public synchronized void reload(Collection<Faculty> faculties) {
+        facultiesById.clear();
+        idsByName.clear();
+        idsByColor.clear();
+        faculties.forEach(this::put);
+    }
+
+    public int size() {
+        return facultiesById.size();
+    }
+
+    private Faculty first(NavigableSet<Long> ids) {
+        if (ids == null) {
+            return null;
+        }
+        for (Long id : ids) {
+            Faculty faculty = facultiesById.get(id);
+            if (faculty != null) {
+                return faculty;
+            }
+        }
+        return null;
+    }
+
+    private static void addId(Map<String, NavigableSet<Long>> index, String value, long id) {
+        if (value != null) {
+            index.computeIfAbsent(normalize(value), key -> new ConcurrentSkipListSet<>()).add(id);
+        }
+    }
+
+    private static void removeId(Map<String, NavigableSet<Long>> index, String value, long id) {
+        if (value != null) {
+            index.computeIfPresent(normalize(value), (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Ключ, по которому факультеты сравниваются по имени и цвету: без пробелов по краям и в нижнем регистре.
+     */
+    public static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,83 @@
+package ru.hogwarts.school.index;
+
+import org.springframework.stereotype.Component;
+import ru.hogwarts.school.model.Faculty;
+
+/**
+ * Единая точка обновления индексов в памяти после записи студентов и факультетов.
+ * Ее вызывают entity listener'ы и сервисы, которые пишут в базу запросами
+ * {@code update}/{@code delete} в обход жизненного цикла сущностей. Изменения
+ * применяются после фиксации транзакции.
+ */
+@Component
+public class IndexUpdates {
+
+    private final StudentNameIndex studentNameIndex;
+    private final StudentStatistics studentStatistics;
+    private final FacultyLookupIndex facultyLookupIndex;
+    private final NameSearchIndex nameSearchIndex;
+
+    public IndexUpdates(StudentNameIndex studentNameIndex, StudentStatistics studentStatistics,
+                        FacultyLookupIndex facultyLookupIndex, NameSearchIndex nameSearchIndex) {
+        this.studentNameIndex = studentNameIndex;
+        this.studentStatistics = studentStatistics;
+        this.facultyLookupIndex = facultyLookupIndex;
+        this.nameSearchIndex = nameSearchIndex;
+    }
+
+    public void studentCreated(long id, String name, int age) {
+        AfterCommit.run(() -> {
+            studentNameIndex.put(id, name);
+            nameSearchIndex.putStudent(id, name);
+            studentStatistics.add(age);
+        });
+    }
+
+    /**
+     * Старый возраст при изменении неизвестен, поэтому статистика помечается устаревшей.
+     */
+    public void studentUpdated(long id, String name) {
+        AfterCommit.run(() -> {
+            studentNameIndex.put(id, name);
+            nameSearchIndex.putStudent(id, name);
+            studentStatistics.invalidate();
+        });
+    }
+
+    public void studentRemoved(long id, int age) {
+        AfterCommit.run(() -> {
+            removeStudentName(id);
+            studentStatistics.remove(age);
+        });
+    }
+
+    /**
+     * Удаление без чтения строки: возраст неизвестен, статистика помечается устаревшей.
+     */
+    public void studentRemoved(long id) {
+        AfterCommit.run(() -> {
+            removeStudentName(id);
+            studentStatistics.invalidate();
+        });
+    }
+
+    public void facultySaved(Faculty faculty) {
+        Faculty copy = new Faculty(faculty.getId(), faculty.getName(), faculty.getColor());
+        AfterCommit.run(() -> {
+            facultyLookupIndex.put(copy);
+            nameSearchIndex.putFaculty(copy);
+        });
+    }
+
+    public void facultyRemoved(long id) {
+        AfterCommit.run(() -> {
+            facultyLookupIndex.remove(id);
+            nameSearchIndex.removeFaculty(id);
+        });
+    }
+
+    private void removeStudentName(long id) {
+        studentNameIndex.remove(id);
+        nameSearchIndex.removeStudent(id);
+    }
+}
@@ -0,0 +1,91 @@
+package ru.hogwarts.school.index;
+
+import org.springframework.stereotype.Component;
+import ru.hogwarts.school.dto.SearchMatch;
+import ru.hogwarts.school.model.Faculty;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Поиск подстроки в названиях и цветах факультетов и в именах студентов по индексам
+ * триграмм в памяти. Результаты всех индексов объединяются в один рейтинг, факультет,
+ * найденный и по названию, и по цвету, попадает в него один раз.
+ */
+@Component
+public class NameSearchIndex {
+
+    public static final String FACULTY = "faculty";
+    public static final String STUDENT = "student";
+
+    private static final Comparator<SearchMatch> RANKING = Comparator.comparingInt(SearchMatch::getRank)
+            .thenComparingInt(match -> match.getValue().length())
+            .thenComparing(match -> STUDENT.equals(match.getType()))
+            .thenComparingLong(SearchMatch::getId);
+
+    private final TrigramIndex facultyNames = new TrigramIndex();
+    private final TrigramIndex facultyColors = new TrigramIndex();
+    private final TrigramIndex studentNames = new TrigramIndex();
+
+    public List<SearchMatch> search(String query, int limit) {
+        Map<Long, SearchMatch> faculties = new LinkedHashMap<>();
+        for (TrigramIndex.Match match : facultyNames.search(query, limit)) {
+            faculties.put(match.getId(), toSearchMatch(FACULTY, "name", match));
+        }
+        for (TrigramIndex.Match match : facultyColors.search(query, limit)) {
+            SearchMatch candidate = toSearchMatch(FACULTY, "color", match);
+            faculties.merge(match.getId(), candidate,
+                    (current, other) -> current.getRank() <= other.getRank() ? current : other);
+        }
+        List<SearchMatch> matches = new ArrayList<>(faculties.values());
+        for (TrigramIndex.Match match : studentNames.search(query, limit)) {
+            matches.add(toSearchMatch(STUDENT, "name", match));
+        }
+        matches.sort(RANKING);
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    public void putFaculty(Faculty faculty) {
+        facultyNames.put(faculty.getId(), faculty.getName());
+        facultyColors.put(faculty.getId(), faculty.getColor());
+    }
+
+    public void removeFaculty(long id) {
+        facultyNames.remove(id);
+        facultyColors.remove(id);
+    }
+
+    public void reloadFaculties(Collection<Faculty> faculties) {
+        facultyNames.clear();
+        facultyColors.clear();
+        faculties.forEach(this::putFaculty);
+    }
+
+    public void putStudent(long id, String name) {
+        studentNames.put(id, name);
+    }
+
+    public void removeStudent(long id) {
+        studentNames.remove(id);
+    }
+
+    public void clearStudents() {
+        studentNames.clear();
+    }
+
+    public int facultyCount() {
+        return facultyNames.size();
+    }
+
+    public int studentCount() {
+        return studentNames.size();
+    }
+
+    private static SearchMatch toSearchMatch(String type, String field, TrigramIndex.Match match) {
+        return new SearchMatch(type, match.getId(), field, match.getText(), match.getRank());
+    }
+}
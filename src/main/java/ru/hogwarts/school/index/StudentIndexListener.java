@@ -0,0 +1,33 @@
+package ru.hogwarts.school.index;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import ru.hogwarts.school.model.Student;
+
+/**
+ * Обновляет индексы студентов при любой записи студента через JPA.
+ */
+public class StudentIndexListener {
+
+    private final IndexUpdates indexUpdates;
+
+    public StudentIndexListener(IndexUpdates indexUpdates) {
+        this.indexUpdates = indexUpdates;
+    }
+
+    @PostPersist
+    public void onCreate(Student student) {
+        indexUpdates.studentCreated(student.getId(), student.getName(), student.getAge());
+    }
+
+    @PostUpdate
+    public void onUpdate(Student student) {
+        indexUpdates.studentUpdated(student.getId(), student.getName());
+    }
+
+    @PostRemove
+    public void onRemove(Student student) {
+        indexUpdates.studentRemoved(student.getId(), student.getAge());
+    }
+}
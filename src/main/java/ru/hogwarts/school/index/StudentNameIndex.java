@@ -0,0 +1,70 @@
+package ru.hogwarts.school.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Отсортированный индекс имен студентов в верхнем регистре для поиска по префиксу.
+ * Ключ — имя и id через нулевой символ, поэтому одинаковые имена разных студентов
+ * хранятся отдельно, а порядок совпадает с обычной сортировкой строк.
+ */
+@Component
+public class StudentNameIndex {
+
+    private static final char SEPARATOR = '\u0000';
+
+    private final Map<Long, String> namesById = new ConcurrentHashMap<>();
+    private final NavigableSet<String> keys = new ConcurrentSkipListSet<>();
+
+    public List<String> findByPrefix(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        List<String> names = new ArrayList<>();
+        for (String key : keys.tailSet(normalized, true)) {
+            if (names.size() >= limit || !key.startsWith(normalized)) {
+                break;
+            }
+            names.add(key.substring(0, key.lastIndexOf(SEPARATOR)));
+        }
+        return names;
+    }
+
+    public synchronized void put(long id, String name) {
+        remove(id);
+        if (name != null) {
+            String normalized = normalize(name);
+            namesById.put(id, normalized);
+            keys.add(key(normalized, id));
+        }
+    }
+
+    public synchronized void remove(long id) {
+        String removed = namesById.remove(id);
+        if (removed != null) {
+            keys.remove(key(removed, id));
+        }
+    }
+
+    public synchronized void clear() {
+        namesById.clear();
+        keys.clear();
+    }
+
+    public int size() {
+        return namesById.size();
+    }
+
+    private static String key(String normalizedName, long id) {
+        return normalizedName + SEPARATOR + id;
+    }
+
+    private static String normalize(String name) {
+        return name.toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.hogwarts.school.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Количество студентов, сумма возрастов и гистограмма возрастов (для минимума и максимума),
+ * которые обновляются при каждой записи студента. Изменение существующего студента
+ * не сообщает старый возраст, поэтому такая запись помечает статистику устаревшей,
+ * и она пересчитывается из базы.
+ */
+@Component
+public class StudentStatistics {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder ageSum = new LongAdder();
+    private final ConcurrentSkipListMap<Integer, Long> ageCounts = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong modifications = new AtomicLong();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean stale = true;
+
+    public void add(int age) {
+        lock.readLock().lock();
+        try {
+            count.increment();
+            ageSum.add(age);
+            ageCounts.merge(age, 1L, Long::sum);
+            modifications.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void remove(int age) {
+        lock.readLock().lock();
+        try {
+            count.decrement();
+            ageSum.add(-age);
+            ageCounts.computeIfPresent(age, (key, value) -> value == 1 ? null : value - 1);
+            modifications.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void invalidate() {
+        lock.readLock().lock();
+        try {
+            stale = true;
+            modifications.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public long modificationCount() {
+        return modifications.get();
+    }
+
+    /**
+     * Заменяет статистику гистограммой из базы, если с момента {@code expectedModifications}
+     * не было других изменений. Иначе оставляет статистику устаревшей и возвращает false.
+     */
+    public boolean replace(long expectedModifications, Map<Integer, Long> ageHistogram) {
+        lock.writeLock().lock();
+        try {
+            if (modifications.get() != expectedModifications) {
+                stale = true;
+                return false;
+            }
+            count.reset();
+            ageSum.reset();
+            ageCounts.clear();
+            ageHistogram.forEach((age, students) -> {
+                count.add(students);
+                ageSum.add(age * students);
+                ageCounts.put(age, students);
+            });
+            stale = false;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long ageSum() {
+        return ageSum.sum();
+    }
+
+    public Integer minAge() {
+        Map.Entry<Integer, Long> first = ageCounts.firstEntry();
+        return first != null ? first.getKey() : null;
+    }
+
+    public Integer maxAge() {
+        Map.Entry<Integer, Long> last = ageCounts.lastEntry();
+        return last != null ? last.getKey() : null;
+    }
+}
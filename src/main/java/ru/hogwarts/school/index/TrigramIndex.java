@@ -0,0 +1,284 @@
+package ru.hogwarts.school.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс триграмм для поиска подстроки без учета регистра. Для каждой
+ * триграммы хранится отсортированный массив id, кандидаты — пересечение списков всех
+ * триграмм запроса, после чего совпадение проверяется по самой строке. Запросы короче
+ * {@link #MIN_QUERY_LENGTH} символов триграмм не имеют, и ответить на них можно только
+ * перебором всех строк, поэтому для них возвращается пустой список.
+ */
+public class TrigramIndex {
+
+    static final int GRAM = 3;
+    public static final int MIN_QUERY_LENGTH = GRAM;
+
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::getRank)
+            .thenComparingInt(match -> match.getText().length())
+            .thenComparingLong(Match::getId);
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Возвращает до {@code limit} строк, содержащих {@code query}: сначала точные совпадения,
+     * затем совпадения с начала строки, с начала слова и все остальные; внутри группы —
+     * более короткие строки, затем меньший id. Запрос короче {@link #MIN_QUERY_LENGTH}
+     * символов без пробелов по краям ничего не находит.
+     */
+    public List<Match> search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.length() < MIN_QUERY_LENGTH || limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<Match> best = new PriorityQueue<>(RANKING.reversed());
+        lock.readLock().lock();
+        try {
+            Postings[] lists = postingsOf(normalized);
+            if (lists != null) {
+                Postings smallest = lists[0];
+                for (int i = 0; i < smallest.size; i++) {
+                    long id = smallest.ids[i];
+                    if (containedInAll(lists, id)) {
+                        offer(best, id, entries.get(id), normalized, limit);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(RANKING);
+        return matches;
+    }
+
+    public void put(long id, String text) {
+        lock.writeLock().lock();
+        try {
+            removeUnderLock(id);
+            if (text != null) {
+                Entry entry = new Entry(text, normalize(text));
+                entries.put(id, entry);
+                for (String gram : grams(entry.normalized)) {
+                    postings.computeIfAbsent(gram, key -> new Postings()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeUnderLock(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeUnderLock(long id) {
+        Entry removed = entries.remove(id);
+        if (removed == null) {
+            return;
+        }
+        for (String gram : grams(removed.normalized)) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Списки id для всех триграмм запроса, начиная с самого короткого,
+     * или null, если какой-то триграммы нет ни в одной строке.
+     */
+    private Postings[] postingsOf(String normalizedQuery) {
+        Set<String> grams = grams(normalizedQuery);
+        Postings[] lists = new Postings[grams.size()];
+        int i = 0;
+        for (String gram : grams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return null;
+            }
+            lists[i++] = list;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+        return lists;
+    }
+
+    private static boolean containedInAll(Postings[] lists, long id) {
+        for (int i = 1; i < lists.length; i++) {
+            if (!lists[i].contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void offer(PriorityQueue<Match> best, long id, Entry entry, String query, int limit) {
+        int rank = rank(entry.normalized, query);
+        if (rank < 0) {
+            return;
+        }
+        Match match = new Match(id, entry.text, rank);
+        if (best.size() < limit) {
+            best.add(match);
+        } else if (RANKING.compare(match, best.peek()) < 0) {
+            best.poll();
+            best.add(match);
+        }
+    }
+
+    /**
+     * Ранг лучшего вхождения запроса в строку или -1, если вхождения нет. Вхождения
+     * проверяются все: первое может оказаться внутри слова, а следующее — в начале другого.
+     */
+    private static int rank(String text, String query) {
+        int position = text.indexOf(query);
+        if (position < 0) {
+            return -1;
+        }
+        if (position == 0) {
+            return text.length() == query.length() ? 0 : 1;
+        }
+        for (; position >= 0; position = text.indexOf(query, position + 1)) {
+            if (!Character.isLetterOrDigit(text.charAt(position - 1))) {
+                return 2;
+            }
+        }
+        return 3;
+    }
+
+    static Set<String> grams(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static final class Match {
+
+        private final long id;
+        private final String text;
+        private final int rank;
+
+        Match(long id, String text, int rank) {
+            this.id = id;
+            this.text = text;
+            this.rank = rank;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * 0 — строка совпадает с запросом, 1 — начинается с него, 2 — запрос в начале слова, 3 — остальное.
+         */
+        public int getRank() {
+            return rank;
+        }
+    }
+
+    private static final class Entry {
+
+        private final String text;
+        private final String normalized;
+
+        private Entry(String text, String normalized) {
+            this.text = text;
+            this.normalized = normalized;
+        }
+    }
+
+    /**
+     * Отсортированный массив id. Новые записи обычно получают наибольший id,
+     * поэтому добавление почти всегда дописывает в конец.
+     */
+    private static final class Postings {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        private void add(long id) {
+            if (size == 0 || id > ids[size - 1]) {
+                ensureCapacity();
+                ids[size++] = id;
+                return;
+            }
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            int insertion = -position - 1;
+            ensureCapacity();
+            System.arraycopy(ids, insertion, ids, insertion + 1, size - insertion);
+            ids[insertion] = id;
+            size++;
+        }
+
+        private boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        private boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package ru.hogwarts.school.model;
 
-import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 @Entity
@@ -10,16 +10,20 @@ public class Avatar {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @JsonIgnore
     private String filePath;
+
     private long fileSize;
     private String mediaType;
+    private String checksum;
 
     @Lob
+    @JsonIgnore
     private byte[] data;
 
     @OneToOne
     @JoinColumn(name = "student_id", unique = true)
-    @JsonBackReference
+    @JsonIgnore
     private Student student;
 
     public Avatar() {}
@@ -48,6 +52,12 @@ public class Avatar {
     public void setMediaType(String mediaType) {
         this.mediaType = mediaType;
     }
+    public String getChecksum() {
+        return checksum;
+    }
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
     public byte[] getData() {
         return data;
     }
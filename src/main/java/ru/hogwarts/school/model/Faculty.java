@@ -1,12 +1,18 @@
 package ru.hogwarts.school.model;
 
-import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ru.hogwarts.school.index.FacultyIndexListener;
 
 import java.util.Collection;
 import java.util.Objects;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "faculty")
+@EntityListeners(FacultyIndexListener.class)
 @Table(
         uniqueConstraints = @UniqueConstraint(columnNames = {"name", "color"})
 )
@@ -16,14 +22,20 @@ public class Faculty {
     @GeneratedValue(strategy = GenerationType.AUTO)
     private long id;
 
+    @Version
+    private long version;
+
     @Column(nullable = false)
     private String name;
 
     @Column(nullable = false)
     private String color;
 
+    // Коллекция не кэшируется: это обратная сторона связи, и Hibernate не сбрасывает ее кэш,
+    // когда сохраняется студент с этим факультетом. Студентов факультета читает проекция
+    // StudentRepository.findByFacultyIdOrderByIdAsc.
     @OneToMany(mappedBy = "faculty", fetch = FetchType.LAZY)
-    @JsonManagedReference
+    @JsonIgnore
     private Collection<Student> students;
 
     public Faculty() {
@@ -63,7 +75,6 @@ public class Faculty {
                 "id=" + id +
                 ", name='" + name + '\'' +
                 ", color='" + color + '\'' +
-                ", students=" + (students != null ? students.size() : 0) +
                 '}';
     }
 
@@ -75,6 +86,14 @@ public class Faculty {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
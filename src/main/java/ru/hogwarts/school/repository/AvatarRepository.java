@@ -1,13 +1,49 @@
 package ru.hogwarts.school.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.hogwarts.school.dto.AvatarMetadata;
 import ru.hogwarts.school.model.Avatar;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
 import java.util.Optional;
 
 public interface AvatarRepository extends JpaRepository<Avatar, Long> {
     Optional<Avatar> findByStudentId(Long studentId);
 
+    @Query("select a.id as id, a.student.id as studentId, a.filePath as filePath, " +
+            "a.mediaType as mediaType, a.fileSize as fileSize, a.checksum as checksum from Avatar a where a.student.id = :studentId")
+    Optional<AvatarMetadata> findMetadataByStudentId(Long studentId);
+
+    @Query(value = "select a.id as id, a.student.id as studentId, a.filePath as filePath, " +
+            "a.mediaType as mediaType, a.fileSize as fileSize, a.checksum as checksum from Avatar a",
+            countQuery = "select count(a) from Avatar a")
+    Page<AvatarMetadata> findAllMetadata(Pageable pageable);
+
     Page<Avatar> findAll(Pageable pageable);
+
+    @Query("select a.data from Avatar a where a.id = :id")
+    byte[] findDataById(Long id);
+
+    @Query("select a.id from Avatar a where a.data is not null and a.id > :afterId order by a.id")
+    List<Long> findIdsWithDataAfter(Long afterId, Limit limit);
+
+    /**
+     * Перезаписывает содержимое существующего аватара, не читая строку: иначе вместе с сущностью
+     * в кучу попал бы старый блоб из {@code data}.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Avatar a set a.filePath = :filePath, a.fileSize = :fileSize, a.mediaType = :mediaType, " +
+            "a.checksum = :checksum, a.data = :data where a.id = :id")
+    int updateContent(Long id, String filePath, long fileSize, String mediaType, String checksum, byte[] data);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Avatar a where a.student.id = :studentId")
+    int deleteByStudentId(long studentId);
 }
@@ -1,8 +1,55 @@
 package ru.hogwarts.school.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.dto.EntityVersion;
 import ru.hogwarts.school.model.Faculty;
-import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface FacultyRepository extends JpaRepository<Faculty, Long> {
-    Collection<Faculty> findByNameContainingIgnoreCaseOrColorContainingIgnoreCase(String namePart, String colorPart);}
\ No newline at end of file
+    List<Faculty> findByNameIgnoreCaseOrColorIgnoreCaseOrderByIdAsc(String name, String color);
+
+    @Query("select f.version from Faculty f where f.id = :id")
+    Optional<Long> findVersionById(long id);
+
+    /**
+     * Те же строки, что и {@link #findByColorIgnoreCaseAndIdGreaterThanOrderByIdAsc}, но только id и версии.
+     */
+    @Query("select f.id as id, f.version as version from Faculty f " +
+            "where upper(f.color) = upper(:color) and f.id > :afterId order by f.id")
+    List<EntityVersion> findVersionsByColorAfter(String color, long afterId, Limit limit);
+
+    List<Faculty> findByColorIgnoreCaseAndIdGreaterThanOrderByIdAsc(String color, long afterId, Limit limit);
+
+    /**
+     * {@code pattern} — шаблон LIKE в нижнем регистре, где {@code %}, {@code _} и {@code \}
+     * из запроса пользователя экранированы обратной косой чертой.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select f from Faculty f where f.id > :afterId " +
+            "and (lower(f.name) like :pattern escape '\\' or lower(f.color) like :pattern escape '\\') " +
+            "order by f.id")
+    List<Faculty> findByNameOrColorLikeAfter(String pattern, long afterId, Limit limit);
+
+    /**
+     * Изменяет факультет одним запросом и увеличивает версию. При заданной {@code version}
+     * строка меняется, только если версия в базе совпадает. Возвращает число измененных строк.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Faculty f set f.name = :name, f.color = :color, f.version = f.version + 1 " +
+            "where f.id = :id and (:version is null or f.version = :version)")
+    int updateFaculty(long id, String name, String color, Long version);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Faculty f where f.id = :id")
+    int deleteFacultyById(long id);
+}
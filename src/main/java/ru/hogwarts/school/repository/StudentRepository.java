@@ -1,22 +1,79 @@
 package ru.hogwarts.school.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.hogwarts.school.dto.StudentAgeCount;
+import ru.hogwarts.school.dto.StudentNameView;
+import ru.hogwarts.school.dto.StudentRosterRow;
+import ru.hogwarts.school.dto.StudentSummary;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 import org.springframework.data.domain.Pageable;
 
 
 public interface StudentRepository extends JpaRepository<Student, Long> {
-    Collection<Student> findByAgeBetween(int min, int max);
+    @EntityGraph(attributePaths = "faculty")
+    List<Student> findByAgeAndIdGreaterThanOrderByIdAsc(int age, long afterId, Limit limit);
 
-    @Query("select count(s) from Student s")
-    Long countAllStudents();
+    @EntityGraph(attributePaths = "faculty")
+    List<Student> findByIdIn(Collection<Long> ids);
 
-    @Query("select avg(s.age) from Student s")
-    Double findAverageAge();
+    @EntityGraph(attributePaths = "faculty")
+    List<Student> findByAgeBetweenAndIdGreaterThanOrderByIdAsc(int min, int max, long afterId, Limit limit);
+
+    List<StudentSummary> findByFacultyIdOrderByIdAsc(long facultyId);
+
+    @Query("select s.id as id, s.name as name, s.age as age, f.name as faculty " +
+            "from Student s left join s.faculty f where s.id > :afterId order by s.id")
+    List<StudentRosterRow> findRosterAfter(long afterId, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select s.id as id, s.name as name, s.age as age, f.name as faculty " +
+            "from Student s left join s.faculty f order by s.id")
+    Stream<StudentRosterRow> streamAllForExport();
+
+    @Query("select s.version from Student s where s.id = :id")
+    Optional<Long> findVersionById(long id);
 
     @Query(value = "select s from Student s order by s.id desc")
     List<Student> findLastFiveStudents(Pageable pageable);
-}
\ No newline at end of file
+
+    @Query("select s.age as age, count(s) as students from Student s group by s.age")
+    List<StudentAgeCount> countStudentsByAge();
+
+    @Query("select s.name from Student s where s.name in :names")
+    Set<String> findExistingNames(Collection<String> names);
+
+    @Query("select s.id as id, s.name as name from Student s")
+    List<StudentNameView> findAllNames();
+
+    /**
+     * Изменяет студента одним запросом и увеличивает версию. При заданной {@code version}
+     * строка меняется, только если версия в базе совпадает. Возвращает число измененных строк.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Student s set s.name = :name, s.age = :age, s.faculty = :faculty, s.version = s.version + 1 " +
+            "where s.id = :id and (:version is null or s.version = :version)")
+    int updateStudent(long id, String name, int age, Faculty faculty, Long version);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Student s where s.id = :id")
+    int deleteStudentById(long id);
+}
@@ -0,0 +1,260 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Service;
+import ru.hogwarts.school.dto.AvatarPreviewStats;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Строит уменьшенные копии аватаров в фоне, на ограниченном пуле потоков,
+ * и хранит их в подкаталоге {@code previews} рядом с оригиналом как {@code <studentId>_<size>.png}.
+ * Оригиналы лежат в самом каталоге аватаров, поэтому загрузка с любым именем файла
+ * не может совпасть с превью и быть им перезаписана.
+ * Размеры картинки читаются из заголовка до декодирования: картинки больше
+ * {@code avatar.preview.max-pixels} пикселей пропускаются, остальные декодируются
+ * с прореживанием до наибольшего размера превью, поэтому маленький сильно сжатый
+ * файл не раскрывается в куче в полный размер.
+ */
+@Service
+public class AvatarPreviewService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvatarPreviewService.class);
+
+    static final String PREVIEW_MEDIA_TYPE = "image/png";
+    static final String PREVIEW_DIR = "previews";
+
+    private final List<Integer> sizes;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalProcessingNanos = new AtomicLong();
+    private final AtomicLong maxProcessingNanos = new AtomicLong();
+
+    public AvatarPreviewService(@Value("${avatar.preview.sizes:64,128}") List<Integer> sizes,
+                                @Value("${avatar.preview.threads:2}") int threads,
+                                @Value("${avatar.preview.queue-capacity:100}") int queueCapacity,
+                                @Value("${avatar.preview.max-pixels:40000000}") long maxPixels,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.sizes = sizes.stream().sorted().toList();
+        this.maxPixels = maxPixels;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(virtualThreads));
+    }
+
+    /**
+     * В режиме виртуальных потоков пул остается ограниченным по числу задач, но его
+     * рабочие потоки не занимают поток платформы, пока ждут чтения и записи файлов.
+     */
+    private static ThreadFactory threadFactory(boolean virtualThreads) {
+        if (virtualThreads) {
+            return new VirtualThreadTaskExecutor("avatar-preview-").getVirtualThreadFactory();
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "avatar-preview-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public void schedulePreviews(Long studentId, Path original) throws IOException {
+        logger.info("Was invoked method for schedule avatar previews");
+        logger.debug("Scheduling previews for student id={}, sizes={}", studentId, sizes);
+
+        deletePreviews(studentId, original);
+        try {
+            executor.execute(() -> generatePreviews(studentId, original));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            logger.warn("Preview queue is full, previews for student id={} will not be generated", studentId);
+        }
+    }
+
+    public void deletePreviews(Long studentId, Path original) throws IOException {
+        for (int size : sizes) {
+            Files.deleteIfExists(previewPath(studentId, original, size));
+        }
+    }
+
+    public Optional<Path> findPreview(Long studentId, Path original, int requestedSize) {
+        logger.info("Was invoked method for find avatar preview");
+        logger.debug("Looking for preview of student id={} with size={}", studentId, requestedSize);
+
+        if (sizes.isEmpty()) {
+            return Optional.empty();
+        }
+        int size = sizes.stream()
+                .filter(s -> s >= requestedSize)
+                .findFirst()
+                .orElse(sizes.get(sizes.size() - 1));
+        Path preview = previewPath(studentId, original, size);
+        return Files.exists(preview) ? Optional.of(preview) : Optional.empty();
+    }
+
+    public AvatarPreviewStats getStats() {
+        long done = completed.get() + failed.get();
+        double averageMillis = done == 0 ? 0.0 : totalProcessingNanos.get() / (double) done / 1_000_000;
+        return new AvatarPreviewStats(
+                executor.getQueue().size(),
+                executor.getActiveCount(),
+                completed.get(),
+                failed.get(),
+                rejected.get(),
+                averageMillis,
+                maxProcessingNanos.get() / 1_000_000.0);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("avatar.preview.queue.size", executor, e -> e.getQueue().size())
+                .description("Задачи генерации превью, ожидающие в очереди")
+                .register(registry);
+        Gauge.builder("avatar.preview.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Задачи генерации превью, выполняющиеся сейчас")
+                .register(registry);
+        taskCounter(registry, "completed", completed);
+        taskCounter(registry, "failed", failed);
+        taskCounter(registry, "rejected", rejected);
+        FunctionTimer.builder("avatar.preview.processing", this,
+                        service -> service.completed.get() + service.failed.get(),
+                        service -> service.totalProcessingNanos.get(), TimeUnit.NANOSECONDS)
+                .register(registry);
+    }
+
+    private static void taskCounter(MeterRegistry registry, String result, AtomicLong counter) {
+        FunctionCounter.builder("avatar.preview.tasks", counter, AtomicLong::get)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void generatePreviews(Long studentId, Path original) {
+        long start = System.nanoTime();
+        try {
+            BufferedImage image = readSubsampled(studentId, original);
+            if (image == null) {
+                logger.warn("Avatar of student id={} is not a readable image within limits, previews skipped", studentId);
+                failed.incrementAndGet();
+                return;
+            }
+            for (int size : sizes) {
+                writePreview(scale(image, size), previewPath(studentId, original, size));
+            }
+            completed.incrementAndGet();
+            logger.debug("Previews for student id={} generated", studentId);
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            logger.error("Failed to generate previews for student id={}", studentId, e);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            totalProcessingNanos.addAndGet(elapsed);
+            maxProcessingNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    /**
+     * Декодирует оригинал, прореживая строки и столбцы так, чтобы большая сторона осталась
+     * не меньше наибольшего превью. Возвращает null, если формат не распознан или картинка
+     * больше допустимого числа пикселей.
+     */
+    private BufferedImage readSubsampled(Long studentId, Path original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    logger.warn("Avatar of student id={} is {}x{} pixels, above the limit of {}",
+                            studentId, width, height, maxPixels);
+                    return null;
+                }
+                int largest = sizes.isEmpty() ? Math.max(width, height) : sizes.get(sizes.size() - 1);
+                int subsampling = Math.max(1, Math.max(width, height) / largest);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image, int size) {
+        double ratio = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage preview = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = preview.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return preview;
+    }
+
+    private static void writePreview(BufferedImage preview, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            ImageIO.write(preview, "png", tempFile.toFile());
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static Path previewPath(Long studentId, Path original, int size) {
+        return original.resolveSibling(PREVIEW_DIR).resolve(studentId + "_" + size + ".png");
+    }
+}
@@ -1,39 +1,66 @@
 package ru.hogwarts.school.service;
 
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import ru.hogwarts.school.config.MetricsConfig;
+import ru.hogwarts.school.dto.AvatarFile;
+import ru.hogwarts.school.dto.AvatarMetadata;
 import ru.hogwarts.school.exception.EntityNotFoundException;
+import ru.hogwarts.school.index.AfterCommit;
 import ru.hogwarts.school.model.Avatar;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repository.AvatarRepository;
 import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.storage.AvatarLargeObjects;
+import ru.hogwarts.school.storage.AvatarStore;
+import ru.hogwarts.school.storage.FileSystemAvatarStore;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Counted(value = MetricsConfig.SERVICE_ERRORS, recordFailuresOnly = true)
 public class AvatarService {
 
     private static final Logger logger = LoggerFactory.getLogger(AvatarService.class);
 
     private final AvatarRepository avatarRepository;
     private final StudentRepository studentRepository;
+    private final AvatarPreviewService avatarPreviewService;
+    private final AvatarStore avatarStore;
+    private final AvatarLargeObjects avatarLargeObjects;
 
-    @Value("${avatar.dir.path:avatars}")
-    private String avatarDir;
-
-    public AvatarService(AvatarRepository avatarRepository, StudentRepository studentRepository) {
+    public AvatarService(AvatarRepository avatarRepository, StudentRepository studentRepository,
+                         AvatarPreviewService avatarPreviewService, AvatarStore avatarStore,
+                         AvatarLargeObjects avatarLargeObjects) {
         this.avatarRepository = avatarRepository;
         this.studentRepository = studentRepository;
+        this.avatarPreviewService = avatarPreviewService;
+        this.avatarStore = avatarStore;
+        this.avatarLargeObjects = avatarLargeObjects;
     }
 
+    /**
+     * Запись содержимого и строки идет в одной транзакции: прежний large object удаляется
+     * вместе с обновлением строки, а прежний файл — только после фиксации. Существующая строка
+     * читается только как метаданные, чтобы старый блоб не загружался в кучу.
+     */
+    @Transactional(rollbackFor = IOException.class)
     public Avatar saveAvatar(Long studentId, MultipartFile file) throws IOException {
         logger.info("Was invoked method for save avatar");
         logger.debug("Saving avatar for student id={}, file name={}", studentId, file.getOriginalFilename());
@@ -43,48 +70,110 @@ public class AvatarService {
             return new EntityNotFoundException("Студент с id=" + studentId + " не найден");
         });
 
-        Avatar avatar = avatarRepository.findByStudentId(studentId).orElse(new Avatar());
-
-        String fileName = studentId + "_" + file.getOriginalFilename();
-        Path filePath = Paths.get(avatarDir).resolve(fileName);
+        Optional<AvatarMetadata> existing = avatarRepository.findMetadataByStudentId(studentId);
+        Avatar avatar = new Avatar();
+        avatar.setStudent(student);
+        existing.ifPresent(metadata -> {
+            avatar.setId(metadata.getId());
+            avatar.setFilePath(metadata.getFilePath());
+            avatarLargeObjects.unlink(metadata.getId());
+        });
 
-        Files.createDirectories(filePath.getParent());
-        Files.write(filePath, file.getBytes());
+        MessageDigest digest = newChecksumDigest();
+        long size;
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            size = avatarStore.write(avatar, studentId + "_" + file.getOriginalFilename(), in);
+        }
 
-        avatar.setStudent(student);
-        avatar.setFilePath(filePath.toString());
-        avatar.setFileSize(file.getSize());
+        avatar.setFileSize(size);
         avatar.setMediaType(file.getContentType());
-        avatar.setData(file.getBytes());
-
-        return avatarRepository.save(avatar);
+        avatar.setChecksum(HexFormat.of().formatHex(digest.digest()));
+
+        Avatar saved = avatar;
+        if (existing.isEmpty()) {
+            saved = avatarRepository.save(avatar);
+        } else {
+            avatarRepository.updateContent(avatar.getId(), avatar.getFilePath(), avatar.getFileSize(),
+                    avatar.getMediaType(), avatar.getChecksum(), avatar.getData());
+        }
+        if (saved.getFilePath() != null) {
+            avatarPreviewService.schedulePreviews(studentId, Paths.get(saved.getFilePath()));
+        }
+        return saved;
     }
 
-    public Avatar getAvatarFromDB(Long studentId) {
-        logger.info("Was invoked method for get avatar from DB");
-        logger.debug("Fetching avatar from DB for student id={}", studentId);
+    public AvatarMetadata getAvatarMetadata(Long studentId) {
+        logger.info("Was invoked method for get avatar metadata");
+        logger.debug("Fetching avatar metadata for student id={}", studentId);
 
-        return avatarRepository.findByStudentId(studentId).orElseThrow(() -> {
+        return avatarRepository.findMetadataByStudentId(studentId).orElseThrow(() -> {
             logger.error("Avatar not found in DB for student with id={}", studentId);
             return new EntityNotFoundException("Аватар для студента с id=" + studentId + " не найден");
         });
     }
 
-    public byte[] getAvatarFromFile(Long studentId) throws IOException {
-        logger.info("Was invoked method for get avatar from file");
-        logger.debug("Fetching avatar file for student id={}", studentId);
+    public AvatarFile getAvatarContent(Long studentId) throws IOException {
+        logger.info("Was invoked method for get avatar content");
+        logger.debug("Fetching avatar content for student id={}", studentId);
+
+        AvatarMetadata avatar = getAvatarMetadata(studentId);
+        return avatarStore.read(avatar).orElseThrow(() -> {
+            logger.error("Avatar content of student id={} not found in store {}",
+                    studentId, avatarStore.getClass().getSimpleName());
+            return new EntityNotFoundException("Содержимое аватара для студента с id=" + studentId + " не найдено");
+        });
+    }
+
+    public AvatarFile getAvatarPreview(Long studentId, int size) throws IOException {
+        logger.info("Was invoked method for get avatar preview");
+        logger.debug("Fetching avatar preview for student id={}, size={}", studentId, size);
+
+        AvatarMetadata avatar = getAvatarMetadata(studentId);
+        Optional<Path> preview = avatarStore.localFile(avatar)
+                .flatMap(original -> avatarPreviewService.findPreview(studentId, original, size));
+        if (preview.isEmpty()) {
+            logger.debug("Preview for student id={} is not ready, serving original", studentId);
+            return getAvatarContent(studentId);
+        }
+        return FileSystemAvatarStore.toAvatarFile(avatar.getId(), preview.get(), AvatarPreviewService.PREVIEW_MEDIA_TYPE);
+    }
+
+    /**
+     * Удаляет строку аватара студента вместе с ее large object, а содержимое в хранилище —
+     * только после фиксации транзакции: при откате строка останется вместе со своим файлом.
+     */
+    public void deleteAvatar(long studentId) {
+        logger.info("Was invoked method for delete avatar");
+        logger.debug("Deleting avatar of student id={}", studentId);
+
+        Optional<AvatarMetadata> avatar = avatarRepository.findMetadataByStudentId(studentId);
+        if (avatar.isEmpty()) {
+            return;
+        }
+        avatarLargeObjects.unlink(avatar.get().getId());
+        avatarRepository.deleteByStudentId(studentId);
+        AfterCommit.run(() -> deleteContent(avatar.get()));
+    }
+
+    private void deleteContent(AvatarMetadata avatar) {
+        try {
+            avatarStore.delete(avatar);
+        } catch (IOException e) {
+            logger.warn("Failed to delete avatar content of student id={} from store {}",
+                    avatar.getStudentId(), avatarStore.getClass().getSimpleName(), e);
+        }
+    }
 
-        Avatar avatar = getAvatarFromDB(studentId);
-        Path path = Paths.get(avatar.getFilePath());
-        if (!Files.exists(path)) {
-            logger.error("Avatar file not found at path: {}", avatar.getFilePath());
-            throw new EntityNotFoundException("Файл аватара не найден по пути: " + avatar.getFilePath());
+    private static MessageDigest newChecksumDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
-        return Files.readAllBytes(path);
     }
 
-    public Page<Avatar> getAvatars(Pageable pageable) {
+    public Page<AvatarMetadata> getAvatars(Pageable pageable) {
         logger.info("Was invoked method for get avatars page");
-        return avatarRepository.findAll(pageable);
+        return avatarRepository.findAllMetadata(pageable);
     }
 }
@@ -0,0 +1,67 @@
+package ru.hogwarts.school.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.hogwarts.school.dto.BatchResult;
+import ru.hogwarts.school.exception.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Загрузка записей по списку id запросами {@code id in (...)} кусками по {@code batch.chunk-size},
+ * чтобы длинный список не превращался в один запрос с тысячами параметров. Все куски
+ * читаются в транзакции вызывающего сервиса.
+ */
+@Component
+public class BatchLoader {
+
+    private final int maxIds;
+    private final int chunkSize;
+
+    public BatchLoader(@Value("${batch.max-ids:1000}") int maxIds,
+                       @Value("${batch.chunk-size:500}") int chunkSize) {
+        this.maxIds = maxIds;
+        this.chunkSize = chunkSize;
+    }
+
+    public <T> BatchResult<T> load(List<Long> ids, Function<Collection<Long>, List<T>> loader,
+                                   ToLongFunction<T> idExtractor) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BadRequestException("Список ids не должен быть пустым");
+        }
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinctIds.contains(null)) {
+            throw new BadRequestException("Список ids не должен содержать пустых значений");
+        }
+        if (distinctIds.size() > maxIds) {
+            throw new BadRequestException("За один запрос можно получить не больше " + maxIds + " записей");
+        }
+
+        Map<Long, T> found = new HashMap<>(distinctIds.size() * 2);
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size()));
+            for (T row : loader.apply(chunk)) {
+                found.put(idExtractor.applyAsLong(row), row);
+            }
+        }
+
+        List<T> items = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : distinctIds) {
+            T row = found.get(id);
+            if (row != null) {
+                items.add(row);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new BatchResult<>(items, missingIds);
+    }
+}
@@ -0,0 +1,104 @@
+package ru.hogwarts.school.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV по RFC 4180 для выгрузок и импорта студентов. Значение с разделителем, кавычкой или
+ * переводом строки пишется в кавычках, кавычки внутри удваиваются, само значение не меняется.
+ * Импорт исторически принимает и запятую, и точку с запятой, поэтому в кавычки берется и она.
+ */
+final class Csv {
+
+    private Csv() {
+    }
+
+    static String value(String value) {
+        if (value == null) {
+            return "";
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == ';' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Читает записи по одной. Поле в кавычках может содержать разделители, удвоенные кавычки
+     * и переводы строк, тогда запись занимает несколько строк файла.
+     */
+    static final class Records {
+
+        private final BufferedReader reader;
+        private int lineNumber;
+        private int recordLine;
+
+        Records(Reader source) {
+            this.reader = new BufferedReader(source);
+        }
+
+        /**
+         * Номер строки файла, с которой началась последняя прочитанная запись.
+         */
+        int recordLine() {
+            return recordLine;
+        }
+
+        /**
+         * Поля следующей записи или null в конце файла. Пустая строка дает одно пустое поле.
+         */
+        List<String> next() throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            recordLine = ++lineNumber;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean fieldStart = true;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    String nextLine = quoted ? reader.readLine() : null;
+                    if (nextLine == null) {
+                        fields.add(field.toString());
+                        return fields;
+                    }
+                    lineNumber++;
+                    field.append('\n');
+                    line = nextLine;
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"' && fieldStart) {
+                    quoted = true;
+                    fieldStart = false;
+                } else if (c == ',' || c == ';') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    fieldStart = true;
+                } else {
+                    field.append(c);
+                    fieldStart = false;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ru.hogwarts.school.service;
+
+import org.springframework.data.domain.Limit;
+import ru.hogwarts.school.dto.CursorPage;
+import ru.hogwarts.school.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Курсор для постраничной выдачи по id: строки после курсора выбираются условием
+ * {@code id > :afterId order by id}, поэтому глубина листания не влияет на стоимость запроса.
+ */
+final class CursorPaging {
+
+    static final int MAX_LIMIT = 100;
+
+    private static final String PREFIX = "id:";
+
+    private CursorPaging() {
+    }
+
+    static long afterId(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Некорректный курсор: " + cursor);
+        }
+    }
+
+    static int limit(int requested) {
+        return Math.max(1, Math.min(requested, MAX_LIMIT));
+    }
+
+    /**
+     * Запрос выполняется с лимитом на одну строку больше страницы: лишняя строка
+     * означает, что следующая страница есть.
+     */
+    static Limit queryLimit(int limit) {
+        return Limit.of(limit + 1);
+    }
+
+    static <T> CursorPage<T> page(List<T> rows, int limit, ToLongFunction<T> idExtractor) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        long lastId = idExtractor.applyAsLong(items.get(limit - 1));
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+        return new CursorPage<>(List.copyOf(items), cursor);
+    }
+}
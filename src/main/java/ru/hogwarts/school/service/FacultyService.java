@@ -1,31 +1,67 @@
 package ru.hogwarts.school.service;
 
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.config.MetricsConfig;
+import ru.hogwarts.school.dto.BatchResult;
+import ru.hogwarts.school.dto.EntityVersion;
+import ru.hogwarts.school.dto.CursorPage;
 import ru.hogwarts.school.dto.StudentResponse;
+import ru.hogwarts.school.dto.StudentSummary;
+import ru.hogwarts.school.exception.ConflictException;
 import ru.hogwarts.school.exception.EntityNotFoundException;
+import ru.hogwarts.school.index.FacultyLookupIndex;
+import ru.hogwarts.school.index.IndexUpdates;
+import ru.hogwarts.school.index.NameSearchIndex;
 import ru.hogwarts.school.model.Faculty;
-import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
 
-import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Counted(value = MetricsConfig.SERVICE_ERRORS, recordFailuresOnly = true)
 public class FacultyService {
 
     private static final Logger logger = LoggerFactory.getLogger(FacultyService.class);
 
     private final FacultyRepository facultyRepository;
+    private final StudentRepository studentRepository;
+    private final FacultyLookupIndex facultyLookupIndex;
+    private final NameSearchIndex nameSearchIndex;
+    private final SingleFlight singleFlight;
+    private final BatchLoader batchLoader;
+    private final IndexUpdates indexUpdates;
 
     @Autowired
-    public FacultyService(FacultyRepository facultyRepository) {
+    public FacultyService(FacultyRepository facultyRepository, StudentRepository studentRepository,
+                          FacultyLookupIndex facultyLookupIndex, NameSearchIndex nameSearchIndex,
+                          SingleFlight singleFlight, BatchLoader batchLoader, IndexUpdates indexUpdates) {
         this.facultyRepository = facultyRepository;
+        this.studentRepository = studentRepository;
+        this.facultyLookupIndex = facultyLookupIndex;
+        this.nameSearchIndex = nameSearchIndex;
+        this.singleFlight = singleFlight;
+        this.batchLoader = batchLoader;
+        this.indexUpdates = indexUpdates;
+    }
+
+    @PostConstruct
+    public void loadFacultyIndex() {
+        List<Faculty> faculties = facultyRepository.findAll();
+        facultyLookupIndex.reload(faculties);
+        nameSearchIndex.reloadFaculties(faculties);
+        logger.info("Faculty lookup index loaded with {} faculties", facultyLookupIndex.size());
     }
 
     public Faculty addFaculty(String name, String color) {
@@ -49,59 +85,107 @@ public class FacultyService {
                 });
     }
 
-    public Faculty editFaculty(Long id, String name, String color) {
+    /**
+     * Изменяет факультет одним запросом {@code update}, так же как
+     * {@link StudentService#editStudent(Long, String, int, String, Long)}.
+     */
+    @Transactional
+    public Faculty editFaculty(Long id, String name, String color, Long version) {
         logger.info("Was invoked method for edit faculty");
-        logger.debug("Editing faculty id={}, name={}, color={}", id, name, color);
+        logger.debug("Editing faculty id={}, name={}, color={}, version={}", id, name, color, version);
 
-        if (!facultyRepository.existsById(id)) {
-            logger.error("Faculty with id={} not found for update", id);
-            throw new EntityNotFoundException("Факультет с id=" + id + " не найден для обновления");
+        if (facultyRepository.updateFaculty(id, name, color, version) == 0) {
+            Long currentVersion = facultyRepository.findVersionById(id).orElse(null);
+            if (currentVersion == null) {
+                logger.error("Faculty with id={} not found for update", id);
+                throw new EntityNotFoundException("Факультет с id=" + id + " не найден для обновления");
+            }
+            logger.warn("Faculty with id={} has version {}, update expected {}", id, currentVersion, version);
+            throw new ConflictException("Факультет с id=" + id + " уже изменен: текущая версия " + currentVersion
+                    + ", в запросе " + version);
         }
-        Faculty faculty = new Faculty();
-        faculty.setId(id);
-        faculty.setName(name);
-        faculty.setColor(color);
-        return facultyRepository.save(faculty);
+        Faculty updated = new Faculty(id, name, color);
+        updated.setVersion(version != null ? version + 1 : findFacultyVersion(id));
+        indexUpdates.facultySaved(updated);
+        return updated;
     }
 
-    public void deleteFaculty(long id) {
-        logger.info("Was invoked method for delete faculty");
-        logger.debug("Deleting faculty with id={}", id);
+    @Transactional(readOnly = true)
+    public BatchResult<Faculty> findFacultiesByIds(List<Long> ids) {
+        logger.info("Was invoked method for find faculties by id list");
+        logger.debug("Searching faculties with ids={}", ids);
+
+        return batchLoader.load(ids, facultyRepository::findAllById, Faculty::getId);
+    }
+
+    /**
+     * Версия берется из сущности: факультеты лежат в кэше второго уровня, поэтому
+     * условный GET обычно обходится без запроса к базе.
+     */
+    public long findFacultyVersion(long id) {
+        logger.info("Was invoked method for find faculty version");
+        logger.debug("Searching version of faculty with id={}", id);
 
-        findFaculty(id); // will log error if no faculty found
-        facultyRepository.deleteById(id);
+        return facultyRepository.findById(id)
+                .map(Faculty::getVersion)
+                .orElseThrow(() -> {
+                    logger.error("There is no faculty with id = {}", id);
+                    return new EntityNotFoundException("Факультет с id=" + id + " не найден");
+                });
     }
 
-    public Collection<Faculty> findByColor(String color) {
-        logger.info("Was invoked method for find faculties by color");
-        logger.debug("Searching faculties with color={}", color);
+    /**
+     * Та же страница, что и {@link #findFacultiesByColor(String, String, int)}, но только с id
+     * и версиями факультетов: по ней проверяется {@code If-None-Match} без загрузки сущностей.
+     */
+    public CursorPage<EntityVersion> findFacultyVersionsByColor(String color, String cursor, int limit) {
+        logger.info("Was invoked method for find faculty versions by color");
+        logger.debug("Searching versions of faculties with color={}, cursor={}, limit={}", color, cursor, limit);
 
-        return facultyRepository.findAll().stream()
-                .filter(f -> f.getColor().equalsIgnoreCase(color))
-                .toList();
+        long afterId = CursorPaging.afterId(cursor);
+        if (color == null || color.isBlank()) {
+            return new CursorPage<>(List.of(), null);
+        }
+        int pageSize = CursorPaging.limit(limit);
+        List<EntityVersion> rows = facultyRepository.findVersionsByColorAfter(color, afterId,
+                CursorPaging.queryLimit(pageSize));
+        return CursorPaging.page(rows, pageSize, EntityVersion::getId);
     }
 
-    public Collection<Faculty> findByNameOrColorIgnoreCase(String param) {
-        logger.info("Was invoked method for find faculties by name or color ignoring case");
-        logger.debug("Searching faculties with param={}", param);
+    @Transactional
+    public void deleteFaculty(long id) {
+        logger.info("Was invoked method for delete faculty");
+        logger.debug("Deleting faculty with id={}", id);
 
-        return facultyRepository.findByNameContainingIgnoreCaseOrColorContainingIgnoreCase(param, param);
+        if (facultyRepository.deleteFacultyById(id) == 0) {
+            logger.error("There is no faculty with id = {}", id);
+            throw new EntityNotFoundException("Факультет с id=" + id + " не найден");
+        }
+        indexUpdates.facultyRemoved(id);
     }
 
-    public Collection<Student> getStudentsByFacultyId(long facultyId) {
+    /**
+     * Студенты факультета читаются одной проекцией без загрузки сущностей; существование
+     * факультета проверяется отдельным запросом только когда список пуст.
+     */
+    public List<StudentSummary> getStudentsByFacultyId(long facultyId) {
         logger.info("Was invoked method for get students by faculty id");
         logger.debug("Fetching students for faculty id={}", facultyId);
 
-        Faculty faculty = findFaculty(facultyId);
-        return faculty.getStudents();
+        List<StudentSummary> students = studentRepository.findByFacultyIdOrderByIdAsc(facultyId);
+        if (students.isEmpty() && !facultyRepository.existsById(facultyId)) {
+            logger.error("There is no faculty with id = {}", facultyId);
+            throw new EntityNotFoundException("Факультет с id=" + facultyId + " не найден");
+        }
+        return students;
     }
 
     public StudentResponse getStudentsOrMessageByFacultyId(long facultyId) {
         logger.info("Was invoked method for get students or message by faculty id");
         logger.debug("Retrieving student list or message for faculty id={}", facultyId);
 
-        Collection<Student> students = getStudentsByFacultyId(facultyId);
-        if (students == null || students.isEmpty()) {
+        List<StudentSummary> students = getStudentsByFacultyId(facultyId);
+        if (students.isEmpty()) {
             logger.warn("No students found on faculty with id={}", facultyId);
             return new StudentResponse("На факультете с id=" + facultyId + " нет студентов");
         }
@@ -112,36 +196,57 @@ public class FacultyService {
         logger.info("Was invoked method for find faculty by name or color ignoring case");
         logger.debug("Searching faculty with param={}", param);
 
-        var faculties = findByNameOrColorIgnoreCase(param.toLowerCase());
-        return faculties.stream()
-                .filter(f -> f.getName().equalsIgnoreCase(param) || f.getColor().equalsIgnoreCase(param))
+        Faculty faculty = facultyLookupIndex.find(param);
+        if (faculty != null) {
+            return faculty;
+        }
+        logger.debug("Faculty with param={} is not in lookup index, querying database", param);
+        faculty = facultyRepository.findByNameIgnoreCaseOrColorIgnoreCaseOrderByIdAsc(param, param).stream()
                 .findFirst()
                 .orElse(null);
+        if (faculty != null) {
+            facultyLookupIndex.put(faculty);
+        }
+        return faculty;
     }
 
-    public Collection<Faculty> findFacultiesByColor(String color) {
-        logger.info("Was invoked method for find faculties by color");
-        logger.debug("Searching faculties with color={}", color);
+    public CursorPage<Faculty> findFacultiesByColor(String color, String cursor, int limit) {
+        logger.info("Was invoked method for find faculties by color with cursor");
+        logger.debug("Searching faculties with color={}, cursor={}, limit={}", color, cursor, limit);
 
+        long afterId = CursorPaging.afterId(cursor);
         if (color == null || color.isBlank()) {
             logger.warn("Empty or null color parameter in findFacultiesByColor");
-            return List.of();
+            return new CursorPage<>(List.of(), null);
         }
-        return facultyRepository.findAll().stream()
-                .filter(f -> f.getColor().equalsIgnoreCase(color))
-                .collect(Collectors.toList());
+        int pageSize = CursorPaging.limit(limit);
+        List<Faculty> rows = facultyRepository.findByColorIgnoreCaseAndIdGreaterThanOrderByIdAsc(color, afterId,
+                CursorPaging.queryLimit(pageSize));
+        return CursorPaging.page(rows, pageSize, Faculty::getId);
     }
 
-    public Collection<Faculty> findFacultiesByNameOrColorPartial(String param) {
-        logger.info("Was invoked method for find faculties by name or color partial match");
-        logger.debug("Searching faculties with partial parameter={}", param);
+    public CursorPage<Faculty> findFacultiesByNameOrColorPartial(String param, String cursor, int limit) {
+        logger.info("Was invoked method for find faculties by name or color partial match with cursor");
+        logger.debug("Searching faculties with partial parameter={}, cursor={}, limit={}", param, cursor, limit);
 
-        String lowerParam = param.toLowerCase();
-        return facultyRepository.findByNameContainingIgnoreCaseOrColorContainingIgnoreCase(param, param);
+        long afterId = CursorPaging.afterId(cursor);
+        int pageSize = CursorPaging.limit(limit);
+        String pattern = "%" + escapeLike(param.toLowerCase(Locale.ROOT)) + "%";
+        List<Faculty> rows = facultyRepository.findByNameOrColorLikeAfter(pattern, afterId,
+                CursorPaging.queryLimit(pageSize));
+        return CursorPaging.page(rows, pageSize, Faculty::getId);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     public String findLongestFacultyName() {
         logger.info("Was invoked method to find longest faculty name");
+        return singleFlight.execute("faculty.longestName", this::loadLongestFacultyName);
+    }
+
+    private String loadLongestFacultyName() {
         String longest = facultyRepository.findAll().stream()
                 .map(Faculty::getName)
                 .filter(Objects::nonNull)
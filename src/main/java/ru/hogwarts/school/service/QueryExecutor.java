@@ -0,0 +1,75 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ограниченный пул для асинхронных запросов чтения: пока запрос ждет базу, поток Tomcat
+ * свободен и принимает другие запросы. Если очередь заполнена, запрос выполняет сам
+ * вызывающий поток, как без пула. По умолчанию потоков столько же, сколько соединений
+ * в пуле Hikari: больше потоков одновременно до базы все равно не дойдут. При
+ * {@code student.async.threads=0} пула нет и все запросы выполняются в вызывающем потоке.
+ * Загрузка пула видна в метриках {@code executor.*} с тегом {@code name=student.query}.
+ */
+@Component
+public class QueryExecutor implements Executor, MeterBinder {
+
+    private final ThreadPoolExecutor executor;
+
+    public QueryExecutor(@Value("${student.async.threads:${spring.datasource.hikari.maximum-pool-size:10}}") int threads,
+                         @Value("${student.async.queue-capacity:1000}") int queueCapacity,
+                         @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.executor = threads <= 0 ? null
+                : new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(virtualThreads),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static ThreadFactory threadFactory(boolean virtualThreads) {
+        if (virtualThreads) {
+            return new VirtualThreadTaskExecutor("student-query-").getVirtualThreadFactory();
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "student-query-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (executor == null) {
+            command.run();
+            return;
+        }
+        executor.execute(command);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (executor != null) {
+            new ExecutorServiceMetrics(executor, "student.query", Tags.empty()).bindTo(registry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package ru.hogwarts.school.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import ru.hogwarts.school.dto.StudentRosterRow;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Выгружает список студентов в CSV в формате импорта ({@code name,age,faculty}), значения
+ * в кавычках по RFC 4180, как в {@link StudentExportService}, поэтому файл загружается обратно без потерь.
+ * Студенты читаются кусками по id, куски форматируются параллельно на общем ограниченном
+ * пуле, а записываются строго в порядке чтения, поэтому порядок строк всегда по id.
+ */
+@Service
+public class RosterExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RosterExportService.class);
+
+    static final String HEADER = "name,age,faculty\r\n";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final StudentRepository studentRepository;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+    private final ThreadPoolExecutor executor;
+
+    public RosterExportService(StudentRepository studentRepository,
+                               @Value("${roster.export.chunk-size:1000}") int chunkSize,
+                               @Value("${roster.export.threads:2}") int threads,
+                               @Value("${roster.export.queue-capacity:16}") int queueCapacity,
+                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.studentRepository = studentRepository;
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = threads + 1;
+        // Если очередь заполнена несколькими выгрузками сразу, кусок форматирует сам вызывающий поток
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(virtualThreads),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static ThreadFactory threadFactory(boolean virtualThreads) {
+        if (virtualThreads) {
+            return new VirtualThreadTaskExecutor("roster-export-").getVirtualThreadFactory();
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "roster-export-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Пишет список в {@code out} и возвращает число выгруженных студентов. Поток не закрывается.
+     */
+    public long exportRoster(OutputStream out) throws IOException {
+        logger.info("Was invoked method for export student roster");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(HEADER);
+
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        long exported = 0;
+        long afterId = 0;
+        List<StudentRosterRow> chunk;
+        do {
+            chunk = studentRepository.findRosterAfter(afterId, Limit.of(chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            afterId = chunk.get(chunk.size() - 1).getId();
+            exported += chunk.size();
+            List<StudentRosterRow> rows = chunk;
+            pending.addLast(executor.submit(() -> format(rows)));
+            if (pending.size() >= maxChunksInFlight) {
+                writer.write(await(pending.removeFirst()));
+            }
+        } while (chunk.size() == chunkSize);
+
+        while (!pending.isEmpty()) {
+            writer.write(await(pending.removeFirst()));
+        }
+        writer.flush();
+        logger.debug("Roster export finished, {} students written", exported);
+        return exported;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static String format(List<StudentRosterRow> rows) {
+        StringBuilder builder = new StringBuilder(rows.size() * 32);
+        for (StudentRosterRow row : rows) {
+            builder.append(Csv.value(row.getName())).append(',')
+                    .append(row.getAge()).append(',')
+                    .append(Csv.value(row.getFaculty()))
+                    .append("\r\n");
+        }
+        return builder.toString();
+    }
+
+    private static String await(Future<String> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Выгрузка списка студентов прервана", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Ошибка при форматировании списка студентов", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import ru.hogwarts.school.config.MetricsConfig;
+import ru.hogwarts.school.dto.SearchMatch;
+import ru.hogwarts.school.exception.BadRequestException;
+import ru.hogwarts.school.index.NameSearchIndex;
+import ru.hogwarts.school.index.TrigramIndex;
+
+import java.util.List;
+
+/**
+ * Поиск подстроки в названиях и цветах факультетов и именах студентов. В отличие от
+ * {@code LIKE '%...%'} в базе, запрос отвечается индексом триграмм в памяти, который
+ * загружается при старте вместе с остальными индексами и обновляется при каждой записи.
+ * Запрос должен быть не короче {@link TrigramIndex#MIN_QUERY_LENGTH} символов: более
+ * короткий не покрывается ни одной триграммой и потребовал бы перебора всех имен.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Counted(value = MetricsConfig.SERVICE_ERRORS, recordFailuresOnly = true)
+public class SearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+
+    private final NameSearchIndex nameSearchIndex;
+
+    public SearchService(NameSearchIndex nameSearchIndex) {
+        this.nameSearchIndex = nameSearchIndex;
+    }
+
+    public List<SearchMatch> search(String query, int limit) {
+        logger.info("Was invoked method for search by name part");
+        logger.debug("Searching names with query={}, limit={}", query, limit);
+
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Параметр query не должен быть пустым");
+        }
+        if (query.trim().length() < TrigramIndex.MIN_QUERY_LENGTH) {
+            throw new BadRequestException("Параметр query должен содержать не меньше "
+                    + TrigramIndex.MIN_QUERY_LENGTH + " символов");
+        }
+        return nameSearchIndex.search(query, CursorPaging.limit(limit));
+    }
+}
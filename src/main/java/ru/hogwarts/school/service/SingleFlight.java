@@ -0,0 +1,105 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Склеивает одновременные одинаковые вызовы: первый вызов с ключом выполняет вычисление,
+ * остальные, пришедшие до его завершения, ждут и получают тот же результат или ту же ошибку.
+ * Если задан {@code single-flight.freshness}, готовый результат еще столько же отдается
+ * без повторного вычисления. Исходы вызовов считаются в метрике {@code school.single.flight}
+ * с тегами {@code key} и {@code result} (leader, coalesced, fresh).
+ */
+@Component
+public class SingleFlight {
+
+    public static final String METRIC = "school.single.flight";
+
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final long freshnessNanos;
+
+    public SingleFlight(MeterRegistry meterRegistry,
+                        @Value("${single-flight.freshness:0ms}") Duration freshness) {
+        this.meterRegistry = meterRegistry;
+        this.freshnessNanos = freshness.toNanos();
+    }
+
+    public <T> T execute(String key, Supplier<T> computation) {
+        while (true) {
+            Flight existing = flights.get(key);
+            if (existing != null) {
+                if (!existing.result.isDone()) {
+                    record(key, "coalesced");
+                    return await(existing);
+                }
+                if (System.nanoTime() - existing.completedAt < freshnessNanos) {
+                    record(key, "fresh");
+                    return await(existing);
+                }
+                flights.remove(key, existing);
+            }
+            Flight flight = new Flight();
+            if (flights.putIfAbsent(key, flight) == null) {
+                record(key, "leader");
+                return lead(key, flight, computation);
+            }
+        }
+    }
+
+    private <T> T lead(String key, Flight flight, Supplier<T> computation) {
+        T value;
+        try {
+            value = computation.get();
+        } catch (RuntimeException | Error e) {
+            flights.remove(key, flight);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+        flight.completedAt = System.nanoTime();
+        if (freshnessNanos <= 0) {
+            flights.remove(key, flight);
+        }
+        flight.result.complete(value);
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T await(Flight flight) {
+        try {
+            return (T) flight.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private void record(String key, String result) {
+        Counter.builder(METRIC)
+                .description("Вызовы горячих агрегатов: выполнены, присоединены к идущему или взяты из свежего результата")
+                .tag("key", key)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static final class Flight {
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private volatile long completedAt;
+    }
+}
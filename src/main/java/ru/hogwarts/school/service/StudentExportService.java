@@ -0,0 +1,125 @@
+package ru.hogwarts.school.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.dto.StudentRosterRow;
+import ru.hogwarts.school.exception.BadRequestException;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая выгрузка всех студентов. Строки читаются курсором JDBC через проекцию, без создания
+ * сущностей, и сразу пишутся в ответ, поэтому расход памяти не зависит от размера таблицы.
+ */
+@Service
+public class StudentExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentExportService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Неизвестный формат выгрузки: " + value + ", допустимые: ndjson, csv");
+            }
+        }
+    }
+
+    private final StudentRepository studentRepository;
+    private final ObjectMapper objectMapper;
+
+    public StudentExportService(StudentRepository studentRepository, ObjectMapper objectMapper) {
+        this.studentRepository = studentRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Пишет всех студентов в порядке id и возвращает их число. Транзакция держит курсор открытым,
+     * пока идет запись; поток {@code out} не закрывается.
+     */
+    @Transactional(readOnly = true)
+    public long exportAll(Format format, OutputStream out) throws IOException {
+        logger.info("Was invoked method for export all students");
+        logger.debug("Exporting students as {}", format);
+
+        try (Stream<StudentRosterRow> rows = studentRepository.streamAllForExport()) {
+            long exported = format == Format.CSV ? writeCsv(rows.iterator(), out) : writeNdjson(rows.iterator(), out);
+            logger.debug("Export finished, {} students written", exported);
+            return exported;
+        }
+    }
+
+    private long writeNdjson(Iterator<StudentRosterRow> rows, OutputStream out) throws IOException {
+        long exported = 0;
+        JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(new BufferedOutputStream(out, BUFFER_SIZE))
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        while (rows.hasNext()) {
+            StudentRosterRow row = rows.next();
+            generator.writeStartObject();
+            generator.writeNumberField("id", row.getId());
+            generator.writeStringField("name", row.getName());
+            generator.writeNumberField("age", row.getAge());
+            generator.writeStringField("faculty", row.getFaculty());
+            generator.writeEndObject();
+            exported++;
+        }
+        if (exported > 0) {
+            generator.writeRaw('\n');
+        }
+        generator.close();
+        return exported;
+    }
+
+    private static long writeCsv(Iterator<StudentRosterRow> rows, OutputStream out) throws IOException {
+        long exported = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write("id,name,age,faculty\r\n");
+        while (rows.hasNext()) {
+            StudentRosterRow row = rows.next();
+            writer.write(String.valueOf(row.getId()));
+            writer.write(',');
+            writer.write(Csv.value(row.getName()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getAge()));
+            writer.write(',');
+            writer.write(Csv.value(row.getFaculty()));
+            writer.write("\r\n");
+            exported++;
+        }
+        writer.flush();
+        return exported;
+    }
+}
@@ -0,0 +1,240 @@
+package ru.hogwarts.school.service;
+
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hogwarts.school.dto.StudentCreateRequest;
+import ru.hogwarts.school.dto.StudentImportError;
+import ru.hogwarts.school.dto.StudentImportResult;
+import ru.hogwarts.school.index.FacultyLookupIndex;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Массовая загрузка студентов из JSON или CSV (RFC 4180, разделитель — запятая или точка
+ * с запятой). Строки обрабатываются порциями по {@code student.import.chunk-size},
+ * каждая порция вставляется в своей транзакции пакетами JDBC. Если порция не сохранилась,
+ * ее строки повторяются по одной, чтобы найти и вернуть ошибочные. В ответ попадают первые
+ * {@code student.import.max-errors} ошибок, об остальных говорит флаг {@code errorsTruncated}.
+ */
+@Service
+public class StudentImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentImportService.class);
+
+    private static final int MIN_AGE = 16;
+
+    private final StudentRepository studentRepository;
+    private final FacultyService facultyService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public StudentImportService(StudentRepository studentRepository, FacultyService facultyService,
+                                EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                @Value("${student.import.chunk-size:500}") int chunkSize,
+                                @Value("${student.import.max-errors:100}") int maxErrors) {
+        this.studentRepository = studentRepository;
+        this.facultyService = facultyService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public StudentImportResult importStudents(List<StudentCreateRequest> requests) {
+        logger.info("Was invoked method for import students");
+        logger.debug("Importing {} students from JSON", requests.size());
+
+        ImportContext context = new ImportContext();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        for (int i = 0; i < requests.size(); i++) {
+            StudentCreateRequest request = requests.get(i);
+            if (request == null) {
+                context.total++;
+                context.reject(i + 1, null, "Ожидается объект студента");
+                continue;
+            }
+            chunk.add(new ImportRow(i + 1, request));
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, context);
+                chunk.clear();
+            }
+        }
+        importChunk(chunk, context);
+        return context.toResult();
+    }
+
+    public StudentImportResult importCsv(Reader source) throws IOException {
+        logger.info("Was invoked method for import students from CSV");
+
+        ImportContext context = new ImportContext();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        Csv.Records records = new Csv.Records(source);
+        List<String> fields;
+        boolean firstLine = true;
+        while ((fields = records.next()) != null) {
+            int lineNumber = records.recordLine();
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            if (firstLine && fields.get(0).trim().equalsIgnoreCase("name")) {
+                firstLine = false;
+                continue;
+            }
+            firstLine = false;
+            if (fields.size() != 3) {
+                context.total++;
+                context.reject(lineNumber, null, "Ожидается три поля: имя, возраст, факультет");
+                continue;
+            }
+            StudentCreateRequest request = new StudentCreateRequest();
+            request.setName(fields.get(0).trim());
+            request.setFaculty(fields.get(2).trim());
+            try {
+                request.setAge(Integer.parseInt(fields.get(1).trim()));
+            } catch (NumberFormatException e) {
+                context.total++;
+                context.reject(lineNumber, request.getName(), "Возраст должен быть числом");
+                continue;
+            }
+            chunk.add(new ImportRow(lineNumber, request));
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, context);
+                chunk.clear();
+            }
+        }
+        importChunk(chunk, context);
+        return context.toResult();
+    }
+
+    private void importChunk(List<ImportRow> rows, ImportContext context) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        context.total += rows.size();
+        List<String> names = rows.stream()
+                .map(row -> row.request().getName())
+                .filter(name -> name != null)
+                .toList();
+        Set<String> existingNames = names.isEmpty() ? Set.of() : studentRepository.findExistingNames(names);
+        // Имена из прошлых порций уже сохранены и находятся запросом выше, поэтому повторы ищутся только внутри порции
+        Set<String> chunkNames = new HashSet<>();
+
+        List<ImportRow> accepted = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            String error = validate(row.request(), existingNames, chunkNames, context);
+            if (error != null) {
+                context.reject(row.number(), row.request().getName(), error);
+            } else {
+                chunkNames.add(row.request().getName());
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(accepted, context));
+            context.imported += accepted.size();
+        } catch (RuntimeException e) {
+            logger.warn("Import chunk of {} students failed, retrying row by row: {}", accepted.size(), e.getMessage());
+            for (ImportRow row : accepted) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(row), context));
+                    context.imported++;
+                } catch (RuntimeException rowError) {
+                    logger.debug("Import of row {} failed", row.number(), rowError);
+                    context.reject(row.number(), row.request().getName(), "Студент не сохранен: " + describe(rowError));
+                }
+            }
+        }
+        logger.debug("Import progress: {} of {} rows imported", context.imported, context.total);
+    }
+
+    private void persist(List<ImportRow> rows, ImportContext context) {
+        for (ImportRow row : rows) {
+            Student student = new Student();
+            student.setName(row.request().getName());
+            student.setAge(row.request().getAge());
+            student.setFaculty(context.faculty(row.request().getFaculty()));
+            entityManager.persist(student);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static String describe(RuntimeException e) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        return cause.getMessage() == null
+                ? cause.getClass().getSimpleName()
+                : cause.getClass().getSimpleName() + ": " + cause.getMessage();
+    }
+
+    private String validate(StudentCreateRequest request, Set<String> existingNames, Set<String> chunkNames,
+                            ImportContext context) {
+        if (request.getName() == null || request.getName().isBlank()) {
+            return "Имя студента обязательно";
+        }
+        if (request.getAge() < MIN_AGE) {
+            return "Возраст должен быть не меньше " + MIN_AGE;
+        }
+        if (request.getFaculty() == null || request.getFaculty().isBlank()) {
+            return "Факультет (имя или цвет) обязателен";
+        }
+        if (existingNames.contains(request.getName()) || chunkNames.contains(request.getName())) {
+            return "Студент с именем '" + request.getName() + "' уже существует";
+        }
+        if (context.faculty(request.getFaculty()) == null) {
+            return "Факультет с именем или цветом '" + request.getFaculty() + "' не найден";
+        }
+        return null;
+    }
+
+    private record ImportRow(int number, StudentCreateRequest request) {
+    }
+
+    private class ImportContext {
+        private final Map<String, Optional<Faculty>> faculties = new HashMap<>();
+        private final List<StudentImportError> errors = new ArrayList<>();
+        private boolean errorsTruncated;
+        private int total;
+        private int imported;
+
+        Faculty faculty(String param) {
+            return faculties.computeIfAbsent(FacultyLookupIndex.normalize(param),
+                    key -> Optional.ofNullable(facultyService.findFacultyByNameOrColorIgnoreCase(param.trim())))
+                    .orElse(null);
+        }
+
+        void reject(int row, String name, String message) {
+            if (errors.size() < maxErrors) {
+                errors.add(new StudentImportError(row, name, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        StudentImportResult toResult() {
+            return new StudentImportResult(total, imported, errors, errorsTruncated);
+        }
+    }
+}
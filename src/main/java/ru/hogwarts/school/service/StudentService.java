@@ -1,34 +1,74 @@
 package ru.hogwarts.school.service;
 
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.config.MetricsConfig;
+import ru.hogwarts.school.dto.BatchResult;
+import ru.hogwarts.school.dto.CursorPage;
+import ru.hogwarts.school.dto.StudentStatisticsResponse;
+import ru.hogwarts.school.exception.ConflictException;
 import ru.hogwarts.school.exception.EntityNotFoundException;
+import ru.hogwarts.school.index.IndexUpdates;
+import ru.hogwarts.school.index.NameSearchIndex;
+import ru.hogwarts.school.index.StudentNameIndex;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repository.StudentRepository;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 import org.springframework.data.domain.Pageable;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Counted(value = MetricsConfig.SERVICE_ERRORS, recordFailuresOnly = true)
 public class StudentService {
 
     private static final Logger logger = LoggerFactory.getLogger(StudentService.class);
 
     private final StudentRepository studentRepository;
     private final FacultyService facultyService;
-
-    private final Object lock = new Object();
+    private final StudentNameIndex studentNameIndex;
+    private final StudentStatisticsService studentStatisticsService;
+    private final NameSearchIndex nameSearchIndex;
+    private final SingleFlight singleFlight;
+    private final QueryExecutor queryExecutor;
+    private final BatchLoader batchLoader;
+    private final IndexUpdates indexUpdates;
+    private final AvatarService avatarService;
 
     @Autowired
-    public StudentService(StudentRepository studentRepository, FacultyService facultyService) {
+    public StudentService(StudentRepository studentRepository, FacultyService facultyService,
+                          StudentNameIndex studentNameIndex, StudentStatisticsService studentStatisticsService,
+                          NameSearchIndex nameSearchIndex, SingleFlight singleFlight, QueryExecutor queryExecutor,
+                          BatchLoader batchLoader, IndexUpdates indexUpdates, AvatarService avatarService) {
         this.studentRepository = studentRepository;
         this.facultyService = facultyService;
+        this.studentNameIndex = studentNameIndex;
+        this.studentStatisticsService = studentStatisticsService;
+        this.nameSearchIndex = nameSearchIndex;
+        this.singleFlight = singleFlight;
+        this.queryExecutor = queryExecutor;
+        this.batchLoader = batchLoader;
+        this.indexUpdates = indexUpdates;
+        this.avatarService = avatarService;
+    }
+
+    @PostConstruct
+    public void loadStudentNameIndex() {
+        studentNameIndex.clear();
+        nameSearchIndex.clearStudents();
+        studentRepository.findAllNames().forEach(s -> {
+            studentNameIndex.put(s.getId(), s.getName());
+            nameSearchIndex.putStudent(s.getId(), s.getName());
+        });
+        logger.info("Student name index loaded with {} names", studentNameIndex.size());
     }
 
     public Student addStudent(String name, int age, String facultyParam) {
@@ -59,49 +99,79 @@ public class StudentService {
                 });
     }
 
-    public Student editStudent(Long id, String name, int age, String facultyParam) {
+    @Transactional(readOnly = true)
+    public BatchResult<Student> findStudentsByIds(List<Long> ids) {
+        logger.info("Was invoked method for find students by id list");
+        logger.debug("Searching students with ids={}", ids);
+
+        return batchLoader.load(ids, studentRepository::findByIdIn, Student::getId);
+    }
+
+    public long findStudentVersion(long id) {
+        logger.info("Was invoked method for find student version");
+        logger.debug("Searching version of student with id={}", id);
+
+        return studentRepository.findVersionById(id)
+                .orElseThrow(() -> {
+                    logger.error("There is no student with id = {}", id);
+                    return new EntityNotFoundException("Студент с id=" + id + " не найден");
+                });
+    }
+
+    /**
+     * Изменяет студента одним запросом {@code update} без предварительного чтения. Если клиент
+     * передал {@code version}, она же проверяется в запросе, и ответ собирается без обращения
+     * к базе; иначе новая версия дочитывается отдельным запросом. Ноль измененных строк
+     * разбирается вторым запросом: студента нет (404) или версия устарела (409).
+     */
+    @Transactional
+    public Student editStudent(Long id, String name, int age, String facultyParam, Long version) {
         logger.info("Was invoked method for edit student");
-        logger.debug("Editing student id={}, name={}, age={}, facultyParam={}", id, name, age, facultyParam);
+        logger.debug("Editing student id={}, name={}, age={}, facultyParam={}, version={}",
+                id, name, age, facultyParam, version);
 
-        if (!studentRepository.existsById(id)) {
-            logger.error("Student with id={} not found for update", id);
-            throw new EntityNotFoundException("Студент с id=" + id + " не найден для обновления");
-        }
         Faculty faculty = facultyService.findFacultyByNameOrColorIgnoreCase(facultyParam);
         if (faculty == null) {
             logger.error("Faculty with name or color '{}' not found during student edit", facultyParam);
             throw new EntityNotFoundException(
                     "Факультет с именем или цветом '" + facultyParam + "' не найден");
         }
-        Student existing = findStudent(id);
-        existing.setName(name);
-        existing.setAge(age);
-        existing.setFaculty(faculty);
-        return studentRepository.save(existing);
-    }
-
-    public void deleteStudent(long id) {
-        logger.info("Was invoked method for delete student");
-        logger.debug("Deleting student with id={}", id);
+        if (studentRepository.updateStudent(id, name, age, faculty, version) == 0) {
+            throw notUpdated(id, version);
+        }
+        indexUpdates.studentUpdated(id, name);
 
-        findStudent(id);
-        studentRepository.deleteById(id);
+        Student updated = new Student(id, name, age, faculty);
+        updated.setVersion(version != null ? version + 1 : findStudentVersion(id));
+        return updated;
     }
 
-    public Collection<Student> findByAge(int age) {
-        logger.info("Was invoked method for find students by age");
-        logger.debug("Searching students with age={}", age);
-
-        return studentRepository.findAll().stream()
-                .filter(s -> s.getAge() == age)
-                .toList();
+    private RuntimeException notUpdated(long id, Long expectedVersion) {
+        Long currentVersion = studentRepository.findVersionById(id).orElse(null);
+        if (currentVersion == null) {
+            logger.error("Student with id={} not found for update", id);
+            return new EntityNotFoundException("Студент с id=" + id + " не найден для обновления");
+        }
+        logger.warn("Student with id={} has version {}, update expected {}", id, currentVersion, expectedVersion);
+        return new ConflictException("Студент с id=" + id + " уже изменен: текущая версия " + currentVersion
+                + ", в запросе " + expectedVersion);
     }
 
-    public Collection<Student> findByAgeBetween(int min, int max) {
-        logger.info("Was invoked method for find students by age between");
-        logger.debug("Searching students with age between {} and {}", min, max);
+    /**
+     * Удаляет аватар и студента запросами {@code delete} без чтения строки студента.
+     * Метаданные аватара читаются, чтобы после фиксации удалить его содержимое из хранилища.
+     */
+    @Transactional
+    public void deleteStudent(long id) {
+        logger.info("Was invoked method for delete student");
+        logger.debug("Deleting student with id={}", id);
 
-        return studentRepository.findByAgeBetween(min, max);
+        avatarService.deleteAvatar(id);
+        if (studentRepository.deleteStudentById(id) == 0) {
+            logger.error("There is no student with id = {}", id);
+            throw new EntityNotFoundException("Студент с id=" + id + " не найден");
+        }
+        indexUpdates.studentRemoved(id);
     }
 
     public Faculty getFacultyByStudentId(long studentId) {
@@ -112,121 +182,105 @@ public class StudentService {
         return student.getFaculty();
     }
 
-    public Collection<Student> findStudentsByAge(Integer age) {
-        logger.info("Was invoked method for find students by age (Integer)");
-        logger.debug("Searching students with age={}", age);
+    public CursorPage<Student> findStudentsByAge(Integer age, String cursor, int limit) {
+        logger.info("Was invoked method for find students by age with cursor");
+        logger.debug("Searching students with age={}, cursor={}, limit={}", age, cursor, limit);
 
+        long afterId = CursorPaging.afterId(cursor);
         if (age == null || age <= 0) {
             logger.warn("Invalid age parameter: {}", age);
-            return List.of();
+            return new CursorPage<>(List.of(), null);
         }
-        return studentRepository.findAll().stream()
-                .filter(s -> s.getAge() == age)
-                .collect(Collectors.toList());
+        int pageSize = CursorPaging.limit(limit);
+        List<Student> rows = studentRepository.findByAgeAndIdGreaterThanOrderByIdAsc(age, afterId,
+                CursorPaging.queryLimit(pageSize));
+        return CursorPaging.page(rows, pageSize, Student::getId);
     }
 
-    public Collection<Student> findStudentsByAgeBetween(int min, int max) {
-        logger.info("Was invoked method for find students by age between (Integer)");
-        logger.debug("Searching students with age between {} and {}", min, max);
+    public CursorPage<Student> findStudentsByAgeBetween(int min, int max, String cursor, int limit) {
+        logger.info("Was invoked method for find students by age between with cursor");
+        logger.debug("Searching students with age between {} and {}, cursor={}, limit={}", min, max, cursor, limit);
 
-        return studentRepository.findByAgeBetween(min, max);
+        long afterId = CursorPaging.afterId(cursor);
+        int pageSize = CursorPaging.limit(limit);
+        List<Student> rows = studentRepository.findByAgeBetweenAndIdGreaterThanOrderByIdAsc(min, max, afterId,
+                CursorPaging.queryLimit(pageSize));
+        return CursorPaging.page(rows, pageSize, Student::getId);
     }
 
     public Long countAllStudents() {
         logger.info("Was invoked method for count all students");
-        return studentRepository.countAllStudents();
+        return studentStatisticsService.getStatistics().getCount();
     }
 
     public Double findAverageAge() {
         logger.info("Was invoked method for find average age");
-        return studentRepository.findAverageAge();
+        return studentStatisticsService.getStatistics().getAverageAge();
+    }
+
+    public StudentStatisticsResponse getStatistics() {
+        logger.info("Was invoked method for get student statistics");
+        return studentStatisticsService.getStatistics();
     }
 
     public List<Student> findLastFiveStudents(Pageable pageable) {
         logger.info("Was invoked method for find last five students");
-        return studentRepository.findLastFiveStudents(pageable);
+        return singleFlight.execute("student.lastFive:" + pageable.getPageNumber() + ":" + pageable.getPageSize(),
+                () -> List.copyOf(studentRepository.findLastFiveStudents(pageable)));
     }
 
     public List<String> getStudentNamesStartingWith(String letter) {
-        return studentRepository.findAll().stream()
-                .map(Student::getName)
-                .filter(name -> name != null && name.toUpperCase().startsWith(letter.toUpperCase()))
-                .map(String::toUpperCase)
-                .sorted()
-                .collect(Collectors.toList());
+        return getStudentNamesStartingWith(letter, Integer.MAX_VALUE);
     }
 
-    public double findAverageAgeByCalculating() {
-        List<Student> students = studentRepository.findAll();
-        return students.stream()
-                .mapToInt(Student::getAge)
-                .average()
-                .orElse(0.0);
-    }
-
-    public void printStudentNamesInParallel() {
-        List<String> names = getStudentNames().stream()
-                .limit(6)
-                .toList();
-
-        names.stream().limit(2).forEach(System.out::println);
+    public List<String> getStudentNamesStartingWith(String letter, int limit) {
+        logger.info("Was invoked method for get student names starting with prefix");
+        logger.debug("Searching student names with prefix={}, limit={}", letter, limit);
 
-        Thread thread1 = new Thread(() -> {
-            names.stream().skip(2).limit(2).forEach(System.out::println);
-        });
+        return studentNameIndex.findByPrefix(letter, limit);
+    }
 
-        Thread thread2 = new Thread(() -> {
-            names.stream().skip(4).limit(2).forEach(System.out::println);
-        });
+    public double findAverageAgeByCalculating() {
+        logger.info("Was invoked method for find average age by calculating");
+        Double averageAge = studentStatisticsService.getStatistics().getAverageAge();
+        return averageAge != null ? averageAge : 0.0;
+    }
 
-        thread1.start();
-        thread2.start();
+    /*
+     * Асинхронные варианты чтения выполняются на QueryExecutor: контроллер возвращает
+     * CompletableFuture, и поток Tomcat освобождается на время запроса к базе.
+     */
 
-        try {
-            thread1.join();
-            thread2.join();
-        } catch (InterruptedException e) {
-            System.out.println("Thread has been interrupted");
-        }
+    public CompletableFuture<Student> findStudentAsync(long id) {
+        return CompletableFuture.supplyAsync(() -> findStudent(id), queryExecutor);
     }
 
-    public void printNamesSynchronized(List<String> names) {
-        synchronized (lock) {
-            for (String name : names) {
-                System.out.println(name);
-            }
-        }
+    public CompletableFuture<CursorPage<Student>> findStudentsByAgeBetweenAsync(int min, int max,
+                                                                               String cursor, int limit) {
+        return CompletableFuture.supplyAsync(() -> findStudentsByAgeBetween(min, max, cursor, limit), queryExecutor);
     }
 
-    public void printStudentNamesSynchronized() {
-        List<String> names = getStudentNames().stream()
-                .limit(6)
-                .toList();
-
-        printNamesSynchronized(names.subList(0, 2));
+    public CompletableFuture<Faculty> getFacultyByStudentIdAsync(long studentId) {
+        return CompletableFuture.supplyAsync(() -> getFacultyByStudentId(studentId), queryExecutor);
+    }
 
-        Thread thread1 = new Thread(() -> {
-            printNamesSynchronized(names.subList(2, 4));
-        });
+    public CompletableFuture<Long> countAllStudentsAsync() {
+        return CompletableFuture.supplyAsync(this::countAllStudents, queryExecutor);
+    }
 
-        Thread thread2 = new Thread(() -> {
-            printNamesSynchronized(names.subList(4, 6));
-        });
+    public CompletableFuture<Double> findAverageAgeAsync() {
+        return CompletableFuture.supplyAsync(this::findAverageAge, queryExecutor);
+    }
 
-        thread1.start();
-        thread2.start();
+    public CompletableFuture<StudentStatisticsResponse> getStatisticsAsync() {
+        return CompletableFuture.supplyAsync(this::getStatistics, queryExecutor);
+    }
 
-        try {
-            thread1.join();
-            thread2.join();
-        } catch (InterruptedException e) {
-            System.out.println("Thread has been interrupted");
-        }
+    public CompletableFuture<List<Student>> findLastFiveStudentsAsync(Pageable pageable) {
+        return CompletableFuture.supplyAsync(() -> findLastFiveStudents(pageable), queryExecutor);
     }
 
-    private  List<String> getStudentNames() {
-        return studentRepository.findAll().stream()
-                .map(Student::getName)
-                .toList();
+    public CompletableFuture<Double> findAverageAgeByCalculatingAsync() {
+        return CompletableFuture.supplyAsync(this::findAverageAgeByCalculating, queryExecutor);
     }
 }
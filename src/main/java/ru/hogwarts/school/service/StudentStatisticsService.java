@@ -0,0 +1,103 @@
+package ru.hogwarts.school.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.hogwarts.school.dto.StudentAgeCount;
+import ru.hogwarts.school.dto.StudentStatisticsResponse;
+import ru.hogwarts.school.index.StudentStatistics;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Отдает количество и возрастную статистику студентов из {@link StudentStatistics}
+ * и периодически сверяет ее с базой одним запросом с группировкой по возрасту.
+ */
+@Service
+public class StudentStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentStatisticsService.class);
+
+    private final StudentRepository studentRepository;
+    private final StudentStatistics studentStatistics;
+    private final SingleFlight singleFlight;
+
+    public StudentStatisticsService(StudentRepository studentRepository, StudentStatistics studentStatistics,
+                                    SingleFlight singleFlight) {
+        this.studentRepository = studentRepository;
+        this.studentStatistics = studentStatistics;
+        this.singleFlight = singleFlight;
+    }
+
+    @PostConstruct
+    public void loadStatistics() {
+        reconcile();
+        logger.info("Student statistics loaded for {} students", studentStatistics.count());
+    }
+
+    @Scheduled(fixedDelayString = "${student.statistics.reconcile-interval:PT5M}",
+            initialDelayString = "${student.statistics.reconcile-interval:PT5M}")
+    public void reconcile() {
+        logger.debug("Reconciling student statistics with database");
+        long modifications = studentStatistics.modificationCount();
+        Map<Integer, Long> histogram = loadAgeHistogram();
+        if (!studentStatistics.replace(modifications, histogram)) {
+            logger.debug("Students changed during reconciliation, statistics stay stale");
+        }
+    }
+
+    public StudentStatisticsResponse getStatistics() {
+        logger.info("Was invoked method for get student statistics");
+
+        if (studentStatistics.isStale()) {
+            return singleFlight.execute("student.statistics", this::reloadStatistics);
+        }
+        return fromStatistics();
+    }
+
+    /**
+     * Пересчет устаревшей статистики. Одновременные запросы ждут одного пересчета, поэтому
+     * снимок счетчика изменений берет тот же вызов, что и читает гистограмму.
+     */
+    private StudentStatisticsResponse reloadStatistics() {
+        long modifications = studentStatistics.modificationCount();
+        Map<Integer, Long> histogram = loadAgeHistogram();
+        if (!studentStatistics.replace(modifications, histogram)) {
+            return fromHistogram(histogram);
+        }
+        return fromStatistics();
+    }
+
+    private StudentStatisticsResponse fromStatistics() {
+        long count = studentStatistics.count();
+        return new StudentStatisticsResponse(count,
+                count == 0 ? null : (double) studentStatistics.ageSum() / count,
+                studentStatistics.minAge(),
+                studentStatistics.maxAge());
+    }
+
+    private Map<Integer, Long> loadAgeHistogram() {
+        Map<Integer, Long> histogram = new HashMap<>();
+        for (StudentAgeCount ageCount : studentRepository.countStudentsByAge()) {
+            histogram.put(ageCount.getAge(), ageCount.getStudents());
+        }
+        return histogram;
+    }
+
+    private static StudentStatisticsResponse fromHistogram(Map<Integer, Long> histogram) {
+        long count = 0;
+        long ageSum = 0;
+        for (Map.Entry<Integer, Long> entry : histogram.entrySet()) {
+            count += entry.getValue();
+            ageSum += (long) entry.getKey() * entry.getValue();
+        }
+        return new StudentStatisticsResponse(count,
+                count == 0 ? null : (double) ageSum / count,
+                histogram.keySet().stream().min(Integer::compare).orElse(null),
+                histogram.keySet().stream().max(Integer::compare).orElse(null));
+    }
+}
@@ -0,0 +1,135 @@
+package ru.hogwarts.school.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.hogwarts.school.dto.SumResult;
+import ru.hogwarts.school.exception.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Считает сумму 1..n разными способами для диагностики процессора. Все запуски идут
+ * в одном выделенном {@link ForkJoinPool} размером {@code info.sum.pool-size}, поэтому общий
+ * пул и параллельные стримы остального приложения не конкурируют с замером, а одновременные
+ * запросы не создают новых потоков. Параметр parallelism задает число частей, на которые
+ * делится диапазон, и не может быть больше размера пула.
+ */
+@Service
+public class SumService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SumService.class);
+
+    public enum Method {
+        FORMULA, ITERATE, SEQUENTIAL, RANGE
+    }
+
+    private final long maxN;
+    private final long maxIterateN;
+    private final int poolSize;
+    private final ForkJoinPool pool;
+
+    public SumService(@Value("${info.sum.max-n:1000000000}") long maxN,
+                      @Value("${info.sum.max-iterate-n:10000000}") long maxIterateN,
+                      @Value("${info.sum.pool-size:0}") int poolSize) {
+        this.maxN = maxN;
+        this.maxIterateN = maxIterateN;
+        this.poolSize = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(this.poolSize, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("sum-worker-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public SumResult computeSum(long n, String method, Integer parallelism) {
+        logger.info("Was invoked method for compute sum");
+        logger.debug("Parameters: n={}, method={}, parallelism={}", n, method, parallelism);
+
+        Method sumMethod = parseMethod(method);
+        int threads = parallelism != null ? parallelism : poolSize;
+        long limit = sumMethod == Method.ITERATE ? maxIterateN : maxN;
+        if (n < 1 || n > limit) {
+            throw new BadRequestException("n для метода " + sumMethod.name().toLowerCase(Locale.ROOT)
+                    + " должно быть от 1 до " + limit);
+        }
+        if (threads < 1 || threads > poolSize) {
+            throw new BadRequestException("parallelism должен быть от 1 до " + poolSize);
+        }
+
+        try {
+            Set<Thread> usedThreads = ConcurrentHashMap.newKeySet();
+            long start = System.nanoTime();
+            long sum = pool.submit(() -> sum(sumMethod, n, threads, usedThreads)).get();
+            double elapsedMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+            logger.debug("Время выполнения computeSum методом '{}' (n={}, parallelism={}): {} мс",
+                    sumMethod, n, threads, elapsedMillis);
+            return new SumResult(sumMethod.name().toLowerCase(Locale.ROOT), n, threads, sum, elapsedMillis,
+                    usedThreads.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Подсчет суммы прерван", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ошибка при подсчете суммы", e.getCause());
+        }
+    }
+
+    private static long sum(Method method, long n, int threads, Set<Thread> usedThreads) {
+        usedThreads.add(Thread.currentThread());
+        return switch (method) {
+            case FORMULA -> n * (n + 1) / 2;
+            case ITERATE -> Stream.iterate(1L, a -> a + 1)
+                    .limit(n)
+                    .reduce(0L, Long::sum);
+            case SEQUENTIAL -> LongStream.rangeClosed(1, n).sum();
+            case RANGE -> {
+                // Диапазон делится на parallelism частей: все, кроме последней, отдаются
+                // другим потокам пула, последняя считается в текущем, так что потоков не больше parallelism
+                long chunkSize = (n + threads - 1) / threads;
+                List<ForkJoinTask<Long>> parts = new ArrayList<>(threads - 1);
+                for (int part = 0; part < threads - 1; part++) {
+                    long from = part * chunkSize + 1;
+                    parts.add(ForkJoinTask.adapt(() -> rangeSum(from, Math.min(n, from + chunkSize - 1), usedThreads))
+                            .fork());
+                }
+                long sum = rangeSum((threads - 1) * chunkSize + 1, n, usedThreads);
+                for (ForkJoinTask<Long> part : parts) {
+                    sum += part.join();
+                }
+                yield sum;
+            }
+        };
+    }
+
+    private static long rangeSum(long from, long to, Set<Thread> usedThreads) {
+        usedThreads.add(Thread.currentThread());
+        return from > to ? 0L : LongStream.rangeClosed(from, to).sum();
+    }
+
+    private static Method parseMethod(String method) {
+        try {
+            return Method.valueOf(method.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Неизвестный метод подсчета: " + method
+                    + ", допустимые: formula, iterate, sequential, range");
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ru.hogwarts.school.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.repository.AvatarRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Переносит старые аватары из колонки {@code avatar.data} в активное хранилище и очищает колонку.
+ * Раньше каждая загрузка сохранялась и файлом, и блобом, поэтому у таких строк файл обычно уже есть:
+ * если его размер совпадает с блобом, файл не перезаписывается. Каждый аватар переносится
+ * в своей транзакции, строки выбираются порциями по id, так что перенос можно прервать и повторить.
+ * <p>
+ * Large object в PostgreSQL удаляется через {@link AvatarLargeObjects} перед обнулением колонки.
+ * Объекты, потерянные раньше, можно убрать утилитой {@code vacuumlo}.
+ * <p>
+ * Запускается при старте приложения с {@code avatar.migrate-blobs=true}.
+ */
+@Component
+public class AvatarBlobMigration implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvatarBlobMigration.class);
+
+    private final AvatarRepository avatarRepository;
+    private final AvatarStore avatarStore;
+    private final AvatarLargeObjects avatarLargeObjects;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean migrateOnStartup;
+    private final int batchSize;
+
+    public AvatarBlobMigration(AvatarRepository avatarRepository, AvatarStore avatarStore,
+                               AvatarLargeObjects avatarLargeObjects,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${avatar.migrate-blobs:false}") boolean migrateOnStartup,
+                               @Value("${avatar.migrate-blobs-batch-size:50}") int batchSize) {
+        this.avatarRepository = avatarRepository;
+        this.avatarStore = avatarStore;
+        this.avatarLargeObjects = avatarLargeObjects;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.migrateOnStartup = migrateOnStartup;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (migrateOnStartup) {
+            migrate();
+        }
+    }
+
+    /**
+     * Возвращает число аватаров, у которых очищена колонка {@code data}.
+     */
+    public int migrate() {
+        if (avatarStore instanceof DatabaseAvatarStore) {
+            logger.warn("Avatar store is the database itself, blobs stay where they are");
+            return 0;
+        }
+        if (!avatarStore.durable()) {
+            logger.warn("Avatar store {} loses content on restart, blobs are not migrated",
+                    avatarStore.getClass().getSimpleName());
+            return 0;
+        }
+        int migrated = 0;
+        int failed = 0;
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            ids = avatarRepository.findIdsWithDataAfter(afterId, Limit.of(batchSize));
+            for (Long id : ids) {
+                try {
+                    if (Boolean.TRUE.equals(transactionTemplate.execute(status -> migrate(id)))) {
+                        migrated++;
+                    }
+                } catch (RuntimeException e) {
+                    failed++;
+                    logger.error("Failed to migrate avatar id={} out of the database", id, e);
+                }
+                afterId = id;
+            }
+        } while (ids.size() == batchSize);
+        logger.info("Avatar blob migration finished: migrated={}, failed={}", migrated, failed);
+        return migrated;
+    }
+
+    private boolean migrate(Long id) {
+        Avatar avatar = avatarRepository.findById(id).orElse(null);
+        if (avatar == null || avatar.getData() == null) {
+            return false;
+        }
+        byte[] data = avatar.getData();
+        try {
+            if (!hasFile(avatar, data.length)) {
+                avatarStore.write(avatar, fileName(avatar), new ByteArrayInputStream(data));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (avatar.getChecksum() == null) {
+            avatar.setChecksum(checksum(data));
+        }
+        avatarLargeObjects.unlink(id);
+        avatar.setFileSize(data.length);
+        avatar.setData(null);
+        avatarRepository.save(avatar);
+        logger.debug("Avatar id={} moved out of the database, size={}", id, data.length);
+        return true;
+    }
+
+    private static boolean hasFile(Avatar avatar, long size) throws IOException {
+        if (avatar.getFilePath() == null) {
+            return false;
+        }
+        Path path = Paths.get(avatar.getFilePath());
+        return Files.isRegularFile(path) && Files.size(path) == size;
+    }
+
+    private static String fileName(Avatar avatar) {
+        if (avatar.getFilePath() != null) {
+            return Paths.get(avatar.getFilePath()).getFileName().toString();
+        }
+        return avatar.getStudent().getId() + "_avatar";
+    }
+
+    private static String checksum(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
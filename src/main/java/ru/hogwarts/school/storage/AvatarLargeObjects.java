@@ -0,0 +1,54 @@
+package ru.hogwarts.school.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+
+/**
+ * В PostgreSQL колонка {@code @Lob} хранит ссылку на large object, и ни обнуление ссылки,
+ * ни удаление строки сам объект не удаляют: он остается в {@code pg_largeobject}. Поэтому перед
+ * тем как заменить или удалить {@code avatar.data}, вызывается {@code lo_unlink} в той же
+ * транзакции. На других базах содержимое лежит в самой строке и вызова нет. Поведение можно
+ * задать явно настройкой {@code avatar.unlink-large-objects}, иначе оно определяется по базе.
+ */
+@Component
+public class AvatarLargeObjects {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvatarLargeObjects.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public AvatarLargeObjects(JdbcTemplate jdbcTemplate,
+                              @Value("${avatar.unlink-large-objects:#{null}}") Boolean unlinkLargeObjects) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = unlinkLargeObjects != null ? unlinkLargeObjects : isPostgreSql(jdbcTemplate);
+    }
+
+    /**
+     * Удаляет large object аватара, если он есть. Вызывать в транзакции, которая затем
+     * обнуляет или удаляет строку: при откате объект останется на месте.
+     */
+    public void unlink(Long avatarId) {
+        if (enabled) {
+            jdbcTemplate.queryForList("select lo_unlink(data) from avatar where id = ? and data is not null", avatarId);
+        }
+    }
+
+    private static boolean isPostgreSql(JdbcTemplate jdbcTemplate) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equals(product);
+        } catch (MetaDataAccessException e) {
+            logger.warn("Could not detect database product, large objects are not unlinked", e);
+            return false;
+        }
+    }
+}
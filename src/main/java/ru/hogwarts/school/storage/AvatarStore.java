@@ -0,0 +1,58 @@
+package ru.hogwarts.school.storage;
+
+import ru.hogwarts.school.dto.AvatarFile;
+import ru.hogwarts.school.dto.AvatarMetadata;
+import ru.hogwarts.school.model.Avatar;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Место, где лежит содержимое аватаров. Активное хранилище выбирается настройкой
+ * {@code avatar.store}: {@code filesystem} (по умолчанию), {@code database} или {@code memory}.
+ * Метаданные аватара всегда хранятся в таблице {@code avatar}, хранилище отвечает
+ * только за байты и за поля сущности, указывающие на них.
+ */
+public interface AvatarStore {
+
+    /**
+     * Записывает содержимое аватара студента {@code avatar.getStudent()} и заполняет в сущности
+     * поля, по которым его потом можно прочитать. Возвращает число записанных байт.
+     */
+    long write(Avatar avatar, String fileName, InputStream content) throws IOException;
+
+    /**
+     * Содержимое аватара или пустой результат, если в этом хранилище его нет.
+     */
+    Optional<AvatarFile> read(AvatarMetadata avatar) throws IOException;
+
+    /**
+     * Удаляет содержимое аватара и все, что хранилище построило из него. Строку в таблице
+     * {@code avatar} удаляет вызывающий, поэтому вызывать стоит после фиксации транзакции.
+     */
+    void delete(AvatarMetadata avatar) throws IOException;
+
+    /**
+     * Локальный файл с оригиналом, из которого можно строить превью.
+     */
+    default Optional<Path> localFile(AvatarMetadata avatar) {
+        return Optional.empty();
+    }
+
+    /**
+     * Переживает ли содержимое перезапуск приложения.
+     */
+    default boolean durable() {
+        return true;
+    }
+
+    /**
+     * ETag по контрольной сумме содержимого, для хранилищ без времени изменения файла.
+     */
+    static String contentETag(AvatarMetadata avatar) {
+        String checksum = avatar.getChecksum();
+        return avatar.getId() + "-" + (checksum != null ? checksum : Long.toHexString(avatar.getFileSize()));
+    }
+}
@@ -0,0 +1,54 @@
+package ru.hogwarts.school.storage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.stereotype.Component;
+import ru.hogwarts.school.dto.AvatarFile;
+import ru.hogwarts.school.dto.AvatarMetadata;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.repository.AvatarRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Хранит аватары в колонке {@code avatar.data}, файлов на диске нет. Удобно, когда у приложения
+ * нет постоянного диска, но каждая загрузка целиком проходит через кучу, а таблица растет
+ * вместе с картинками.
+ */
+@Component
+@ConditionalOnProperty(name = "avatar.store", havingValue = "database")
+public class DatabaseAvatarStore implements AvatarStore {
+
+    private final AvatarRepository avatarRepository;
+
+    public DatabaseAvatarStore(AvatarRepository avatarRepository) {
+        this.avatarRepository = avatarRepository;
+    }
+
+    @Override
+    public long write(Avatar avatar, String fileName, InputStream content) throws IOException {
+        byte[] data = content.readAllBytes();
+        avatar.setData(data);
+        avatar.setFilePath(null);
+        return data.length;
+    }
+
+    @Override
+    public Optional<AvatarFile> read(AvatarMetadata avatar) {
+        byte[] data = avatarRepository.findDataById(avatar.getId());
+        if (data == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new AvatarFile(new ByteArrayResource(data), avatar.getMediaType(),
+                AvatarStore.contentETag(avatar), -1));
+    }
+
+    /**
+     * Содержимое лежит в самой строке аватара и удаляется вместе с ней.
+     */
+    @Override
+    public void delete(AvatarMetadata avatar) {
+    }
+}
@@ -0,0 +1,126 @@
+package ru.hogwarts.school.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Component;
+import ru.hogwarts.school.dto.AvatarFile;
+import ru.hogwarts.school.dto.AvatarMetadata;
+import ru.hogwarts.school.index.AfterCommit;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.service.AvatarPreviewService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * Хранит аватары файлами в каталоге {@code avatar.dir.path}, в базе остается только путь.
+ * Файл сначала пишется во временный и затем атомарно переименовывается, поэтому читатели
+ * никогда не видят недописанный аватар. Прежний файл с другим именем удаляется только после
+ * фиксации транзакции, чтобы при откате строка не ссылалась на удаленный файл.
+ */
+@Component
+@ConditionalOnProperty(name = "avatar.store", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemAvatarStore implements AvatarStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSystemAvatarStore.class);
+
+    private final Path avatarDir;
+    private final AvatarPreviewService avatarPreviewService;
+
+    public FileSystemAvatarStore(@Value("${avatar.dir.path:avatars}") String avatarDir,
+                                 AvatarPreviewService avatarPreviewService) {
+        this.avatarDir = Paths.get(avatarDir);
+        this.avatarPreviewService = avatarPreviewService;
+    }
+
+    @Override
+    public long write(Avatar avatar, String fileName, InputStream content) throws IOException {
+        Long studentId = avatar.getStudent().getId();
+        Path filePath = avatarDir.resolve(fileName);
+        Files.createDirectories(filePath.getParent());
+
+        Path tempFile = Files.createTempFile(filePath.getParent(), studentId + "_", ".upload");
+        long size;
+        try {
+            size = Files.copy(content, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            moveAtomically(tempFile, filePath);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        logger.debug("Avatar for student id={} written to {}, size={}", studentId, filePath, size);
+
+        if (avatar.getFilePath() != null && !Paths.get(avatar.getFilePath()).equals(filePath)) {
+            Path previous = Paths.get(avatar.getFilePath());
+            AfterCommit.run(() -> deleteReplaced(studentId, previous));
+        }
+        avatar.setFilePath(filePath.toString());
+        avatar.setData(null);
+        return size;
+    }
+
+    private static void deleteReplaced(Long studentId, Path previous) {
+        try {
+            Files.deleteIfExists(previous);
+        } catch (IOException e) {
+            logger.warn("Failed to delete replaced avatar file {} of student id={}", previous, studentId, e);
+        }
+    }
+
+    @Override
+    public Optional<AvatarFile> read(AvatarMetadata avatar) throws IOException {
+        Optional<Path> path = localFile(avatar);
+        if (path.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(toAvatarFile(avatar.getId(), path.get(), avatar.getMediaType()));
+    }
+
+    @Override
+    public void delete(AvatarMetadata avatar) throws IOException {
+        if (avatar.getFilePath() == null) {
+            return;
+        }
+        Path path = Paths.get(avatar.getFilePath());
+        avatarPreviewService.deletePreviews(avatar.getStudentId(), path);
+        Files.deleteIfExists(path);
+        logger.debug("Avatar file {} of student id={} deleted", path, avatar.getStudentId());
+    }
+
+    @Override
+    public Optional<Path> localFile(AvatarMetadata avatar) {
+        if (avatar.getFilePath() == null) {
+            return Optional.empty();
+        }
+        Path path = Paths.get(avatar.getFilePath());
+        return Files.exists(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Файл превью или оригинала с ETag по размеру и времени изменения: они меняются
+     * при каждой перезаписи, а читать содержимое ради контрольной суммы не нужно.
+     */
+    public static AvatarFile toAvatarFile(Long avatarId, Path path, String mediaType) throws IOException {
+        long size = Files.size(path);
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        String eTag = avatarId + "-" + Long.toHexString(size) + "-" + Long.toHexString(lastModified);
+        return new AvatarFile(new FileSystemResource(path), mediaType, eTag, lastModified);
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
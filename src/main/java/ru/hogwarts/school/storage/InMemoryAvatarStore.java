@@ -0,0 +1,65 @@
+package ru.hogwarts.school.storage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.stereotype.Component;
+import ru.hogwarts.school.dto.AvatarFile;
+import ru.hogwarts.school.dto.AvatarMetadata;
+import ru.hogwarts.school.model.Avatar;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Хранит аватары в памяти по id студента. Содержимое теряется при перезапуске,
+ * поэтому хранилище годится для тестов и локального запуска без диска и без блобов в базе.
+ */
+@Component
+@ConditionalOnProperty(name = "avatar.store", havingValue = "memory")
+public class InMemoryAvatarStore implements AvatarStore {
+
+    private final Map<Long, Stored> avatars = new ConcurrentHashMap<>();
+
+    @Override
+    public long write(Avatar avatar, String fileName, InputStream content) throws IOException {
+        byte[] data = content.readAllBytes();
+        avatars.put(avatar.getStudent().getId(), new Stored(data, System.currentTimeMillis()));
+        avatar.setData(null);
+        avatar.setFilePath(null);
+        return data.length;
+    }
+
+    @Override
+    public Optional<AvatarFile> read(AvatarMetadata avatar) {
+        Stored stored = avatars.get(avatar.getStudentId());
+        if (stored == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new AvatarFile(new ByteArrayResource(stored.data), avatar.getMediaType(),
+                AvatarStore.contentETag(avatar), stored.modifiedAt));
+    }
+
+    @Override
+    public void delete(AvatarMetadata avatar) {
+        avatars.remove(avatar.getStudentId());
+    }
+
+    @Override
+    public boolean durable() {
+        return false;
+    }
+
+    private static final class Stored {
+
+        private final byte[] data;
+        private final long modifiedAt;
+
+        private Stored(byte[] data, long modifiedAt) {
+            this.data = data;
+            this.modifiedAt = modifiedAt;
+        }
+    }
+}
@@ -4,4 +4,11 @@
 CREATE INDEX IF NOT EXISTS idx_student_name ON student(name);
 
 --changeset VladimirKozlov73:2
-CREATE INDEX IF NOT EXISTS idx_faculty_name_color ON faculty(name, color);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_faculty_name_color ON faculty(name, color);
+
+--changeset VladimirKozlov73:3
+CREATE INDEX IF NOT EXISTS idx_student_age_id ON student(age, id);
+
+--changeset VladimirKozlov73:4
+ALTER TABLE student ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE faculty ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
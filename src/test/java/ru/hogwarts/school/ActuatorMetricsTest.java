@@ -0,0 +1,43 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+public class ActuatorMetricsTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void serviceAndRepositoryCallsAreTimed() {
+        restTemplate.getForEntity("/student?age=18", String.class);
+        restTemplate.getForEntity("/faculty/" + Long.MAX_VALUE, String.class);
+        restTemplate.getForEntity("/faculty/longestName", String.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                .contains("school_service_seconds_count{class=\"ru.hogwarts.school.service.StudentService\"," +
+                        "exception=\"none\",method=\"findStudentsByAge\"}")
+                .contains("school_service_seconds_bucket{class=\"ru.hogwarts.school.service.StudentService\"")
+                .contains("school_service_errors_total{class=\"ru.hogwarts.school.service.FacultyService\"," +
+                        "exception=\"EntityNotFoundException\",method=\"findFaculty\",result=\"failure\"}")
+                .contains("spring_data_repository_invocations_seconds_count{exception=\"None\"," +
+                        "method=\"findByAgeAndIdGreaterThanOrderByIdAsc\",repository=\"StudentRepository\"")
+                .contains("avatar_preview_tasks_total{result=\"rejected\"}")
+                .contains("cache_gets_total{cache=\"faculty\",cache_type=\"hibernate\",result=\"miss\"}")
+                .contains("school_single_flight_total{key=\"faculty.longestName\",result=\"leader\"}");
+    }
+}
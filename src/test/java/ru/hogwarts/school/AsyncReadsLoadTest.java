@@ -0,0 +1,37 @@
+package ru.hogwarts.school;
+
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+
+import java.util.List;
+
+/**
+ * Асинхронные эндпоинты чтения студентов при маленьком пуле Tomcat ({@value #REQUEST_THREADS} потока).
+ * Подклассы отличаются только {@code student.async.threads}: с нулем запросы выполняются
+ * в потоке Tomcat, как раньше, иначе — на {@code QueryExecutor}, и поток Tomcat свободен.
+ */
+@ActiveProfiles("test")
+abstract class AsyncReadsLoadTest extends RequestThreadsLoadTest {
+
+    static final int REQUEST_THREADS = 8;
+
+    @DynamicPropertySource
+    static void smallRequestPool(DynamicPropertyRegistry registry) {
+        registry.add("server.tomcat.threads.max", () -> REQUEST_THREADS);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> 32);
+    }
+
+    @Override
+    protected List<String> paths(Faculty faculty, List<Student> students) {
+        long firstId = students.get(0).getId();
+        return List.of(
+                "/student/" + (firstId + 10),
+                "/student/" + (firstId + 20) + "/faculty",
+                "/student/ageBetween?min=18&max=18",
+                "/student/statistics",
+                "/student/lastFive");
+    }
+}
@@ -0,0 +1,370 @@
+package ru.hogwarts.school;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hogwarts.school.dto.AvatarPreviewStats;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.storage.AvatarBlobMigration;
+import ru.hogwarts.school.storage.AvatarStore;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.hogwarts.school.AvatarUploads.content;
+import static ru.hogwarts.school.AvatarUploads.upload;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class AvatarControllerTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private AvatarRepository avatarRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private FacultyRepository facultyRepository;
+
+    @Autowired
+    private AvatarBlobMigration avatarBlobMigration;
+
+    @Autowired
+    private AvatarStore avatarStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void cleanDb() {
+        avatarRepository.deleteAll();
+        studentRepository.deleteAll();
+        facultyRepository.deleteAll();
+    }
+
+    @Test
+    void uploadAvatarStoresMetadataOnly() throws Exception {
+        Student student = studentRepository.save(new Student(0, "Студент с загрузкой", 20));
+        byte[] content = content(2048);
+        upload(restTemplate, student.getId(), content);
+
+        Avatar avatar = avatarRepository.findByStudentId(student.getId()).orElseThrow();
+
+        assertThat(avatar.getData()).isNull();
+        assertThat(avatar.getFileSize()).isEqualTo(content.length);
+        assertThat(avatar.getChecksum())
+                .isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)));
+        assertThat(Files.readAllBytes(Path.of(avatar.getFilePath()))).isEqualTo(content);
+    }
+
+    @Test
+    void getAvatarFromDBFallsBackToFile() {
+        Student student = studentRepository.save(new Student(0, "Студент без блоба", 20));
+        byte[] content = content(256);
+        upload(restTemplate, student.getId(), content);
+
+        ResponseEntity<byte[]> response = restTemplate.getForEntity("/avatar/db/" + student.getId(), byte[].class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(content);
+    }
+
+    @Test
+    void getAvatarFromFile() {
+        Student student = studentRepository.save(new Student(0, "Студент с аватаром", 20));
+        byte[] content = content(1024);
+        upload(restTemplate, student.getId(), content);
+
+        ResponseEntity<byte[]> response = restTemplate.getForEntity("/avatar/file/" + student.getId(), byte[].class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_PNG);
+        assertThat(response.getHeaders().getETag()).isNotBlank();
+        assertThat(response.getHeaders().getLastModified()).isPositive();
+        assertThat(response.getBody()).isEqualTo(content);
+    }
+
+    @Test
+    void getAvatarFromFileNotModified() {
+        Student student = studentRepository.save(new Student(0, "Студент с кэшем", 20));
+        upload(restTemplate, student.getId(), content(512));
+        String eTag = restTemplate.getForEntity("/avatar/file/" + student.getId(), byte[].class)
+                .getHeaders().getETag();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        ResponseEntity<byte[]> response = restTemplate.exchange("/avatar/file/" + student.getId(),
+                HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+    }
+
+    @Test
+    void getAvatarFromFileRange() {
+        Student student = studentRepository.save(new Student(0, "Студент с диапазоном", 20));
+        byte[] content = content(4096);
+        upload(restTemplate, student.getId(), content);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=100-199");
+        ResponseEntity<byte[]> response = restTemplate.exchange("/avatar/file/" + student.getId(),
+                HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 100-199/4096");
+        assertThat(response.getBody()).isEqualTo(Arrays.copyOfRange(content, 100, 200));
+    }
+
+    @Test
+    void getAvatarPreview() throws Exception {
+        Student student = studentRepository.save(new Student(0, "Студент с превью", 20));
+        upload(restTemplate, student.getId(), png(400, 300));
+
+        long completed = 0;
+        for (int attempt = 0; attempt < 50 && completed == 0; attempt++) {
+            Thread.sleep(100);
+            completed = restTemplate.getForObject("/avatar/preview/stats", AvatarPreviewStats.class).getCompleted();
+        }
+        assertThat(completed).isPositive();
+
+        ResponseEntity<byte[]> response = restTemplate.getForEntity(
+                "/avatar/preview/" + student.getId() + "?size=64", byte[].class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_PNG);
+        BufferedImage preview = ImageIO.read(new ByteArrayInputStream(response.getBody()));
+        assertThat(preview.getWidth()).isEqualTo(64);
+        assertThat(preview.getHeight()).isEqualTo(48);
+    }
+
+    @Test
+    void largeImagePreviewKeepsAspectRatioWhenSubsampled() throws Exception {
+        Student student = studentRepository.save(new Student(0, "Студент с большой картинкой", 20));
+        upload(restTemplate, student.getId(), png(900, 600));
+
+        BufferedImage preview = null;
+        for (int attempt = 0; attempt < 50 && preview == null; attempt++) {
+            Thread.sleep(100);
+            ResponseEntity<byte[]> response = restTemplate.getForEntity(
+                    "/avatar/preview/" + student.getId() + "?size=256", byte[].class);
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(response.getBody()));
+            preview = image.getWidth() == 900 ? null : image;
+        }
+
+        assertThat(preview).isNotNull();
+        assertThat(preview.getWidth()).isEqualTo(256);
+        assertThat(preview.getHeight()).isEqualTo(171);
+    }
+
+    @Test
+    void imagesAboveThePixelLimitGetNoPreview() throws Exception {
+        Student student = studentRepository.save(new Student(0, "Студент с огромной картинкой", 20));
+        byte[] content = png(1200, 1000);
+        long failedBefore = restTemplate.getForObject("/avatar/preview/stats", AvatarPreviewStats.class).getFailed();
+        upload(restTemplate, student.getId(), content);
+
+        long failed = failedBefore;
+        for (int attempt = 0; attempt < 50 && failed == failedBefore; attempt++) {
+            Thread.sleep(100);
+            failed = restTemplate.getForObject("/avatar/preview/stats", AvatarPreviewStats.class).getFailed();
+        }
+        ResponseEntity<byte[]> response = restTemplate.getForEntity(
+                "/avatar/preview/" + student.getId() + "?size=64", byte[].class);
+
+        assertThat(failed).isEqualTo(failedBefore + 1);
+        assertThat(response.getBody()).isEqualTo(content);
+    }
+
+    @Test
+    void getAvatarPreviewFallsBackToOriginal() {
+        Student student = studentRepository.save(new Student(0, "Студент без превью", 20));
+        byte[] content = content(300);
+        upload(restTemplate, student.getId(), content);
+
+        ResponseEntity<byte[]> response = restTemplate.getForEntity("/avatar/preview/" + student.getId(), byte[].class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(content);
+    }
+
+    @Test
+    void previewDoesNotOverwriteOriginalNamedLikePreview() throws Exception {
+        Student student = studentRepository.save(new Student(0, "Студент с файлом preview_64", 20));
+        byte[] content = png(400, 300);
+        upload(restTemplate, student.getId(), content, "preview_64.png");
+
+        BufferedImage preview = null;
+        for (int attempt = 0; attempt < 50 && preview == null; attempt++) {
+            Thread.sleep(100);
+            ResponseEntity<byte[]> response = restTemplate.getForEntity(
+                    "/avatar/preview/" + student.getId() + "?size=64", byte[].class);
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(response.getBody()));
+            preview = image.getWidth() == 400 ? null : image;
+        }
+
+        assertThat(preview).isNotNull();
+        assertThat(preview.getWidth()).isEqualTo(64);
+        ResponseEntity<byte[]> original = restTemplate.getForEntity("/avatar/file/" + student.getId(), byte[].class);
+        assertThat(original.getBody()).isEqualTo(content);
+    }
+
+    @Test
+    void getAvatarsListsMetadataOnly() throws Exception {
+        Student first = studentRepository.save(new Student(0, "Первый студент в списке", 20));
+        Student second = studentRepository.save(new Student(0, "Второй студент в списке", 21));
+        upload(restTemplate, first.getId(), content(128));
+        upload(restTemplate, second.getId(), content(64));
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/avatar/all?page=0&size=10", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JsonNode content = new ObjectMapper().readTree(response.getBody()).get("content");
+        assertThat(content).hasSize(2);
+        JsonNode avatar = content.get(0);
+        assertThat(avatar.has("data")).isFalse();
+        assertThat(avatar.get("studentId").asLong()).isEqualTo(first.getId());
+        assertThat(avatar.get("fileSize").asLong()).isEqualTo(128);
+        assertThat(avatar.get("mediaType").asText()).isEqualTo(MediaType.IMAGE_PNG_VALUE);
+        assertThat(avatar.get("url").asText()).endsWith("/avatar/file/" + first.getId());
+    }
+
+    @Test
+    void deleteStudentRemovesAvatarFileAndPreviews() throws Exception {
+        Student student = studentRepository.save(new Student(0, "Удаляемый студент с превью", 20));
+        upload(restTemplate, student.getId(), png(400, 300));
+        Path original = Path.of(avatarRepository.findByStudentId(student.getId()).orElseThrow().getFilePath());
+
+        long previews = 0;
+        for (int attempt = 0; attempt < 50 && previews == 0; attempt++) {
+            Thread.sleep(100);
+            previews = countPreviews(original, student.getId());
+        }
+        assertThat(previews).isPositive();
+
+        restTemplate.delete("/student/" + student.getId());
+
+        assertThat(avatarRepository.findByStudentId(student.getId())).isEmpty();
+        assertThat(original).doesNotExist();
+        assertThat(countPreviews(original, student.getId())).isZero();
+    }
+
+    @Test
+    void replacedFileSurvivesRollback() {
+        Student student = studentRepository.save(new Student(0, "Студент с откаченной заменой", 20));
+        upload(restTemplate, student.getId(), content(200));
+        Avatar avatar = avatarRepository.findByStudentId(student.getId()).orElseThrow();
+        Path original = Path.of(avatar.getFilePath());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try {
+                avatarStore.write(avatar, student.getId() + "_replacement.png", new ByteArrayInputStream(content(300)));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            status.setRollbackOnly();
+        });
+
+        assertThat(original).exists();
+        assertThat(avatarRepository.findByStudentId(student.getId()).orElseThrow().getFilePath())
+                .isEqualTo(original.toString());
+    }
+
+    @Test
+    void getAvatarFromFileNotFound() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/avatar/file/" + Long.MAX_VALUE, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void migrateBlobsMovesLegacyAvatarToFile() throws Exception {
+        Student student = studentRepository.save(new Student(0, "Студент со старым блобом", 20));
+        byte[] content = content(700);
+        Avatar legacy = new Avatar();
+        legacy.setStudent(student);
+        legacy.setMediaType(MediaType.IMAGE_PNG_VALUE);
+        legacy.setFileSize(content.length);
+        legacy.setData(content);
+        avatarRepository.save(legacy);
+
+        assertThat(avatarBlobMigration.migrate()).isEqualTo(1);
+
+        Avatar avatar = avatarRepository.findByStudentId(student.getId()).orElseThrow();
+        assertThat(avatar.getData()).isNull();
+        assertThat(avatar.getChecksum())
+                .isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)));
+        assertThat(Files.readAllBytes(Path.of(avatar.getFilePath()))).isEqualTo(content);
+        ResponseEntity<byte[]> response = restTemplate.getForEntity("/avatar/file/" + student.getId(), byte[].class);
+        assertThat(response.getBody()).isEqualTo(content);
+        assertThat(avatarBlobMigration.migrate()).isZero();
+    }
+
+    @Test
+    void migrateBlobsKeepsFileStoredTwice() throws Exception {
+        Student student = studentRepository.save(new Student(0, "Студент с файлом и блобом", 20));
+        byte[] content = content(900);
+        upload(restTemplate, student.getId(), content);
+        Avatar stored = avatarRepository.findByStudentId(student.getId()).orElseThrow();
+        Path file = Path.of(stored.getFilePath());
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000_000_000L));
+        stored.setData(content);
+        avatarRepository.save(stored);
+
+        assertThat(avatarBlobMigration.migrate()).isEqualTo(1);
+
+        Avatar avatar = avatarRepository.findByStudentId(student.getId()).orElseThrow();
+        assertThat(avatar.getData()).isNull();
+        assertThat(avatar.getFilePath()).isEqualTo(stored.getFilePath());
+        assertThat(Files.getLastModifiedTime(file).toMillis()).isEqualTo(1_000_000_000_000L);
+        assertThat(Files.readAllBytes(file)).isEqualTo(content);
+    }
+
+    private static long countPreviews(Path original, long studentId) throws Exception {
+        Path previews = original.resolveSibling("previews");
+        if (!Files.isDirectory(previews)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(previews)) {
+            return files.filter(f -> f.getFileName().toString().startsWith(studentId + "_")).count();
+        }
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, (x * 7) << 16 | (y * 13) << 8 | (x ^ y));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
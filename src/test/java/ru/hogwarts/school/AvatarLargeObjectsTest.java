@@ -0,0 +1,90 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.hogwarts.school.AvatarUploads.content;
+import static ru.hogwarts.school.AvatarUploads.upload;
+
+/**
+ * В H2 нет large objects, поэтому {@code lo_unlink} подменяется функцией, которая считает вызовы:
+ * число живых объектов равно числу записанных блобов минус число удаленных.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:avatar-large-objects;DB_CLOSE_DELAY=-1",
+        "avatar.unlink-large-objects=true"
+})
+public class AvatarLargeObjectsTest {
+
+    private static final AtomicInteger unlinked = new AtomicInteger();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private AvatarRepository avatarRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public static int unlink(byte[] data) {
+        unlinked.incrementAndGet();
+        return 1;
+    }
+
+    @BeforeEach
+    void cleanDb() {
+        avatarRepository.deleteAll();
+        studentRepository.deleteAll();
+        jdbcTemplate.execute("create alias if not exists lo_unlink for '" + getClass().getName() + ".unlink'");
+        unlinked.set(0);
+    }
+
+    @Test
+    void replacingAndDeletingBlobsLeavesNoLargeObjects() {
+        Student replaced = studentRepository.save(new Student(0, "Студент с замененным блобом", 20));
+        Student deleted = studentRepository.save(new Student(0, "Удаляемый студент с блобом", 20));
+        Student withFile = studentRepository.save(new Student(0, "Удаляемый студент с файлом", 20));
+        saveLegacy(replaced, content(300));
+        saveLegacy(deleted, content(200));
+        upload(restTemplate, withFile.getId(), content(100));
+        long created = 2;
+
+        upload(restTemplate, replaced.getId(), content(400));
+        restTemplate.delete("/student/" + deleted.getId());
+        restTemplate.delete("/student/" + withFile.getId());
+
+        long referenced = jdbcTemplate.queryForObject("select count(*) from avatar where data is not null", Long.class);
+        assertThat(avatarRepository.findByStudentId(replaced.getId()).orElseThrow().getData()).isNull();
+        assertThat(unlinked.get()).isEqualTo(2);
+        assertThat(created - unlinked.get()).isEqualTo(referenced);
+    }
+
+    private void saveLegacy(Student student, byte[] content) {
+        Avatar legacy = new Avatar();
+        legacy.setStudent(student);
+        legacy.setMediaType(MediaType.IMAGE_PNG_VALUE);
+        legacy.setFileSize(content.length);
+        legacy.setData(content);
+        avatarRepository.save(legacy);
+    }
+}
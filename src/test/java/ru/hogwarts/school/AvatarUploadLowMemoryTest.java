@@ -0,0 +1,173 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Загружает несколько файлов по 32 МБ одновременно. Запускается отдельным
+ * выполнением surefire с -Xmx96m: буферизация загрузки в куче приведет к OutOfMemoryError.
+ * База файловая, чтобы старые блобы лежали на диске, а не в куче H2; кэш страниц H2 уменьшен
+ * до 1 МБ, чтобы вставка старых блобов не упиралась в тот же лимит кучи.
+ */
+@Tag("low-memory")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:file:./target/low-memory-db/school;CACHE_SIZE=1024")
+public class AvatarUploadLowMemoryTest {
+
+    private static final int FILE_SIZE = 32 * 1024 * 1024;
+    private static final int UPLOADS = 3;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private AvatarRepository avatarRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Path> sourceFiles = new ArrayList<>();
+
+    @BeforeEach
+    void cleanDb() {
+        avatarRepository.deleteAll();
+        studentRepository.deleteAll();
+    }
+
+    @AfterEach
+    void deleteSourceFiles() throws Exception {
+        for (Path file : sourceFiles) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void uploadLargeAvatarsConcurrently() throws Exception {
+        List<Student> students = new ArrayList<>();
+        List<String> checksums = new ArrayList<>();
+        for (int i = 0; i < UPLOADS; i++) {
+            students.add(studentRepository.save(new Student(0, "Студент с большим аватаром " + i, 20)));
+            checksums.add(writeSourceFile(i));
+        }
+
+        List<CompletableFuture<ResponseEntity<Map>>> uploads = new ArrayList<>();
+        for (int i = 0; i < UPLOADS; i++) {
+            long studentId = students.get(i).getId();
+            Path file = sourceFiles.get(i);
+            uploads.add(CompletableFuture.supplyAsync(() -> upload(studentId, file)));
+        }
+
+        for (int i = 0; i < UPLOADS; i++) {
+            assertThat(uploads.get(i).join().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            Avatar avatar = avatarRepository.findByStudentId(students.get(i).getId()).orElseThrow();
+            assertThat(avatar.getFileSize()).isEqualTo(FILE_SIZE);
+            assertThat(avatar.getChecksum()).isEqualTo(checksums.get(i));
+            assertThat(Files.size(Path.of(avatar.getFilePath()))).isEqualTo(FILE_SIZE);
+        }
+    }
+
+    @Test
+    void uploadOverLegacyBlobsDoesNotLoadThem() throws Exception {
+        List<Student> students = new ArrayList<>();
+        List<String> checksums = new ArrayList<>();
+        for (int i = 0; i < UPLOADS; i++) {
+            Student student = studentRepository.save(new Student(0, "Студент со старым большим блобом " + i, 20));
+            students.add(student);
+            writeSourceFile(UPLOADS + i);
+            insertLegacyBlob(student.getId(), sourceFiles.get(sourceFiles.size() - 1));
+            checksums.add(writeSourceFile(i));
+        }
+
+        List<CompletableFuture<ResponseEntity<Map>>> uploads = new ArrayList<>();
+        for (int i = 0; i < UPLOADS; i++) {
+            long studentId = students.get(i).getId();
+            Path file = sourceFiles.get(2 * i + 1);
+            uploads.add(CompletableFuture.supplyAsync(() -> upload(studentId, file)));
+        }
+
+        for (int i = 0; i < UPLOADS; i++) {
+            assertThat(uploads.get(i).join().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            Long studentId = students.get(i).getId();
+            assertThat(jdbcTemplate.queryForObject("select count(*) from avatar where student_id = ? and data is null",
+                    Long.class, studentId)).isEqualTo(1L);
+            assertThat(jdbcTemplate.queryForObject("select checksum from avatar where student_id = ?",
+                    String.class, studentId)).isEqualTo(checksums.get(i));
+        }
+    }
+
+    private void insertLegacyBlob(long studentId, Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            jdbcTemplate.execute("insert into avatar (student_id, media_type, file_size, data) values (?, ?, ?, ?)",
+                    (PreparedStatementCallback<Integer>) ps -> {
+                        ps.setLong(1, studentId);
+                        ps.setString(2, MediaType.IMAGE_PNG_VALUE);
+                        ps.setLong(3, FILE_SIZE);
+                        ps.setBinaryStream(4, in, FILE_SIZE);
+                        return ps.executeUpdate();
+                    });
+        }
+    }
+
+    private String writeSourceFile(int seed) throws Exception {
+        Path file = Files.createTempFile("avatar-upload-", ".png");
+        sourceFiles.add(file);
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] chunk = new byte[64 * 1024];
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(file), digest)) {
+            for (int written = 0; written < FILE_SIZE; written += chunk.length) {
+                for (int i = 0; i < chunk.length; i++) {
+                    chunk[i] = (byte) (written + i * seed);
+                }
+                out.write(chunk);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private ResponseEntity<Map> upload(long studentId, Path file) {
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        HttpHeaders partHeaders = new HttpHeaders();
+        partHeaders.setContentType(MediaType.IMAGE_PNG);
+        body.add("file", new HttpEntity<>(new FileSystemResource(file), partHeaders));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return restTemplate.postForEntity("/avatar/" + studentId, new HttpEntity<>(body, headers), Map.class);
+    }
+}
@@ -0,0 +1,109 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.storage.AvatarBlobMigration;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.hogwarts.school.AvatarUploads.content;
+import static ru.hogwarts.school.AvatarUploads.upload;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:avatar-database;DB_CLOSE_DELAY=-1",
+        "avatar.store=database"
+})
+public class DatabaseAvatarStoreTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private AvatarRepository avatarRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private AvatarBlobMigration avatarBlobMigration;
+
+    @BeforeEach
+    void cleanDb() {
+        avatarRepository.deleteAll();
+        studentRepository.deleteAll();
+    }
+
+    @Test
+    void uploadStoresBlobWithoutFile() {
+        Student student = studentRepository.save(new Student(0, "Студент с блобом", 20));
+        byte[] content = content(1500);
+        upload(restTemplate, student.getId(), content);
+
+        Avatar avatar = avatarRepository.findByStudentId(student.getId()).orElseThrow();
+
+        assertThat(avatar.getFilePath()).isNull();
+        assertThat(avatar.getData()).isEqualTo(content);
+        assertThat(avatar.getFileSize()).isEqualTo(content.length);
+    }
+
+    @Test
+    void bothEndpointsServeBlob() {
+        Student student = studentRepository.save(new Student(0, "Студент с двумя адресами", 20));
+        byte[] content = content(2048);
+        upload(restTemplate, student.getId(), content);
+
+        for (String path : new String[]{"/avatar/db/", "/avatar/file/", "/avatar/preview/"}) {
+            ResponseEntity<byte[]> response = restTemplate.getForEntity(path + student.getId(), byte[].class);
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_PNG);
+            assertThat(response.getHeaders().getETag()).isNotBlank();
+            assertThat(response.getBody()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void blobSupportsConditionalAndRangeRequests() {
+        Student student = studentRepository.save(new Student(0, "Студент с диапазоном блоба", 20));
+        byte[] content = content(4096);
+        upload(restTemplate, student.getId(), content);
+        String eTag = restTemplate.getForEntity("/avatar/db/" + student.getId(), byte[].class)
+                .getHeaders().getETag();
+
+        HttpHeaders conditional = new HttpHeaders();
+        conditional.setIfNoneMatch(eTag);
+        ResponseEntity<byte[]> notModified = restTemplate.exchange("/avatar/db/" + student.getId(),
+                HttpMethod.GET, new HttpEntity<>(conditional), byte[].class);
+
+        HttpHeaders range = new HttpHeaders();
+        range.set(HttpHeaders.RANGE, "bytes=10-19");
+        ResponseEntity<byte[]> partial = restTemplate.exchange("/avatar/db/" + student.getId(),
+                HttpMethod.GET, new HttpEntity<>(range), byte[].class);
+
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(partial.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(partial.getBody()).isEqualTo(Arrays.copyOfRange(content, 10, 20));
+    }
+
+    @Test
+    void migrationLeavesBlobsInDatabaseStore() {
+        Student student = studentRepository.save(new Student(0, "Студент без переноса", 20));
+        upload(restTemplate, student.getId(), content(100));
+
+        assertThat(avatarBlobMigration.migrate()).isZero();
+        assertThat(avatarRepository.findByStudentId(student.getId()).orElseThrow().getData()).isNotNull();
+    }
+}
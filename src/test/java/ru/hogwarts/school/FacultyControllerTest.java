@@ -2,17 +2,24 @@ package ru.hogwarts.school;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import ru.hogwarts.school.dto.FacultyCreateRequest;
 import ru.hogwarts.school.dto.FacultyEditRequest;
 import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarRepository;
 import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -26,8 +33,22 @@ public class FacultyControllerTest {
     @Autowired
     private FacultyRepository facultyRepository;
 
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private AvatarRepository avatarRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeEach
     void cleanDb() {
+        avatarRepository.deleteAll();
+        studentRepository.deleteAll();
         facultyRepository.deleteAll();
     }
 
@@ -82,9 +103,9 @@ public class FacultyControllerTest {
     void findFacultiesByColor() {
         facultyRepository.save(new Faculty(0, "Гриффиндор", "Красный"));
         facultyRepository.save(new Faculty(0, "Слизерин", "Зеленый"));
-        ResponseEntity<Faculty[]> response = restTemplate.getForEntity("/faculty?color=Красный", Faculty[].class);
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity("/faculty?color=Красный", JsonNode.class);
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody()).hasSize(1);
+        assertThat(response.getBody().get("items")).hasSize(1);
     }
 
     @Test
@@ -92,11 +113,48 @@ public class FacultyControllerTest {
         facultyRepository.save(new Faculty(0, "Гриффиндор", "Красный"));
         facultyRepository.save(new Faculty(0, "Слизерин", "Зеленый"));
 
-        ResponseEntity<Faculty[]> response = restTemplate.getForEntity("/faculty/search?param=гри", Faculty[].class);
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity("/faculty/search?param=гри", JsonNode.class);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody()).isNotEmpty();
-        assertThat(response.getBody()[0].getName().toLowerCase()).contains("гри");
+        assertThat(response.getBody().get("items")).isNotEmpty();
+        assertThat(response.getBody().get("items").get(0).get("name").asText().toLowerCase()).contains("гри");
+    }
+
+    @Test
+    void findFacultiesWithCursor() {
+        for (int i = 0; i < 5; i++) {
+            facultyRepository.save(new Faculty(0, "Красный факультет " + i, "Красный"));
+        }
+        facultyRepository.save(new Faculty(0, "Слизерин", "Зеленый"));
+
+        ResponseEntity<JsonNode> first = restTemplate.getForEntity("/faculty?color=красный&limit=3", JsonNode.class);
+        ResponseEntity<JsonNode> second = restTemplate.getForEntity("/faculty?color=красный&limit=3&cursor="
+                + first.getBody().get("nextCursor").asText(), JsonNode.class);
+        ResponseEntity<JsonNode> search = restTemplate.getForEntity("/faculty/search?param=факультет&limit=4",
+                JsonNode.class);
+
+        assertThat(first.getBody().get("items")).hasSize(3);
+        assertThat(second.getBody().get("items")).hasSize(2);
+        assertThat(second.getBody().get("items").get(0).get("name").asText()).isEqualTo("Красный факультет 3");
+        assertThat(second.getBody().has("nextCursor")).isFalse();
+        assertThat(search.getBody().get("items")).hasSize(4);
+        assertThat(search.getBody().hasNonNull("nextCursor")).isTrue();
+    }
+
+    @Test
+    void searchWithCursorTreatsWildcardsLiterally() {
+        facultyRepository.save(new Faculty(0, "Гриффиндор 100%", "Красный"));
+        facultyRepository.save(new Faculty(0, "Гриффиндор 1000", "Красный"));
+        facultyRepository.save(new Faculty(0, "Когтевран_1", "Синий"));
+        facultyRepository.save(new Faculty(0, "Когтевран-1", "Синий"));
+
+        JsonNode percent = restTemplate.getForObject("/faculty/search?param={param}&limit=10", JsonNode.class, "0%");
+        JsonNode underscore = restTemplate.getForObject("/faculty/search?param={param}&limit=10", JsonNode.class, "Н_1");
+
+        assertThat(percent.get("items")).hasSize(1);
+        assertThat(percent.get("items").get(0).get("name").asText()).isEqualTo("Гриффиндор 100%");
+        assertThat(underscore.get("items")).hasSize(1);
+        assertThat(underscore.get("items").get(0).get("name").asText()).isEqualTo("Когтевран_1");
     }
 
     @Test
@@ -113,4 +171,268 @@ public class FacultyControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(message).contains("нет студентов");
     }
+
+    @Test
+    void getStudentsByFacultyIdUsesSingleStatement() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Faculty faculty = facultyRepository.save(new Faculty(0, "Когтевран", "Синий"));
+        for (int i = 0; i < 10; i++) {
+            studentRepository.save(new Student(0, "Студент Когтеврана " + i, 17 + i, faculty));
+        }
+
+        statistics.clear();
+        ResponseEntity<String> response = restTemplate.getForEntity("/faculty/" + faculty.getId() +
+                "/students", String.class);
+
+        JsonNode students = new ObjectMapper().readTree(response.getBody()).get("students");
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(students).hasSize(10);
+        assertThat(students.get(0).get("name").asText()).isEqualTo("Студент Когтеврана 0");
+        assertThat(students.get(0).get("age").asInt()).isEqualTo(17);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+    }
+
+    @Test
+    void getStudentsByFacultyIdChecksFacultyOnlyWhenEmpty() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Faculty faculty = facultyRepository.save(new Faculty(0, "Пустой", "Белый"));
+
+        statistics.clear();
+        ResponseEntity<String> empty = restTemplate.getForEntity("/faculty/" + faculty.getId() +
+                "/students", String.class);
+        long emptyStatements = statistics.getPrepareStatementCount();
+        ResponseEntity<String> missing = restTemplate.getForEntity("/faculty/" + (faculty.getId() + 1000) +
+                "/students", String.class);
+
+        assertThat(empty.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(emptyStatements).isEqualTo(2);
+        assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void getFacultyDoesNotLoadStudents() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Faculty faculty = facultyRepository.save(new Faculty(0, "Гриффиндор", "Красный"));
+        studentRepository.save(new Student(0, "Студент Гриффиндора", 18, faculty));
+        entityManagerFactory.getCache().evictAll();
+
+        statistics.clear();
+        ResponseEntity<String> response = restTemplate.getForEntity("/faculty/" + faculty.getId(), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).doesNotContain("students");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getFacultyAnswersNotModifiedFromCache() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Faculty saved = facultyRepository.save(new Faculty(0, "Слизерин", "Зеленый"));
+
+        ResponseEntity<Faculty> first = restTemplate.getForEntity("/faculty/" + saved.getId(), Faculty.class);
+        String eTag = first.getHeaders().getETag();
+
+        statistics.clear();
+        ResponseEntity<String> cached = restTemplate.exchange("/faculty/" + saved.getId(), HttpMethod.GET,
+                new HttpEntity<>(ifNoneMatch(eTag)), String.class);
+
+        assertThat(eTag).isEqualTo("\"" + saved.getId() + "-0\"");
+        assertThat(cached.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(cached.getBody()).isNull();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+
+        FacultyEditRequest request = new FacultyEditRequest();
+        request.setId(saved.getId());
+        request.setName("Слизерин");
+        request.setColor("Изумрудный");
+        restTemplate.exchange("/faculty", HttpMethod.PUT, new HttpEntity<>(request), Faculty.class);
+
+        ResponseEntity<Faculty> changed = restTemplate.exchange("/faculty/" + saved.getId(), HttpMethod.GET,
+                new HttpEntity<>(ifNoneMatch(eTag)), Faculty.class);
+
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changed.getBody().getColor()).isEqualTo("Изумрудный");
+        assertThat(changed.getHeaders().getETag()).isEqualTo("\"" + saved.getId() + "-1\"");
+    }
+
+    @Test
+    void findFacultiesByColorAnswersNotModifiedUntilSelectionChanges() {
+        facultyRepository.save(new Faculty(0, "Гриффиндор", "Красный"));
+        facultyRepository.save(new Faculty(0, "Слизерин", "Зеленый"));
+
+        ResponseEntity<JsonNode> first = restTemplate.getForEntity("/faculty?color=Красный", JsonNode.class);
+        String eTag = first.getHeaders().getETag();
+
+        ResponseEntity<String> cached = restTemplate.exchange("/faculty?color=красный", HttpMethod.GET,
+                new HttpEntity<>(ifNoneMatch(eTag)), String.class);
+        facultyRepository.save(new Faculty(0, "Слизерин", "Зеленый-2"));
+        ResponseEntity<String> otherColorAdded = restTemplate.exchange("/faculty?color=Красный", HttpMethod.GET,
+                new HttpEntity<>(ifNoneMatch(eTag)), String.class);
+        facultyRepository.save(new Faculty(0, "Красный факультет", "Красный"));
+        ResponseEntity<JsonNode> sameColorAdded = restTemplate.exchange("/faculty?color=Красный", HttpMethod.GET,
+                new HttpEntity<>(ifNoneMatch(eTag)), JsonNode.class);
+
+        assertThat(eTag).isNotNull();
+        assertThat(cached.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(otherColorAdded.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(sameColorAdded.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(sameColorAdded.getBody().get("items")).hasSize(2);
+        assertThat(sameColorAdded.getHeaders().getETag()).isNotEqualTo(eTag);
+    }
+
+    @Test
+    void findFacultiesByColorPageAnswersNotModifiedUntilPageChanges() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (int i = 0; i < 3; i++) {
+            facultyRepository.save(new Faculty(0, "Красный факультет " + i, "Красный"));
+        }
+
+        ResponseEntity<JsonNode> first = restTemplate.getForEntity("/faculty?color=Красный&limit=2", JsonNode.class);
+        String eTag = first.getHeaders().getETag();
+
+        statistics.clear();
+        ResponseEntity<String> cached = restTemplate.exchange("/faculty?color=Красный&limit=2", HttpMethod.GET,
+                new HttpEntity<>(ifNoneMatch(eTag)), String.class);
+        long cachedStatements = statistics.getPrepareStatementCount();
+        ResponseEntity<String> otherLimit = restTemplate.exchange("/faculty?color=Красный&limit=3", HttpMethod.GET,
+                new HttpEntity<>(ifNoneMatch(eTag)), String.class);
+        facultyRepository.save(new Faculty(0, "Красный факультет 3", "Красный"));
+        ResponseEntity<String> laterRowAdded = restTemplate.exchange("/faculty?color=Красный&limit=2", HttpMethod.GET,
+                new HttpEntity<>(ifNoneMatch(eTag)), String.class);
+        FacultyEditRequest request = new FacultyEditRequest();
+        request.setId(first.getBody().get("items").get(1).get("id").asLong());
+        request.setName("Красный факультет 1 измененный");
+        request.setColor("Красный");
+        restTemplate.exchange("/faculty", HttpMethod.PUT, new HttpEntity<>(request), Faculty.class);
+        ResponseEntity<String> pageRowChanged = restTemplate.exchange("/faculty?color=Красный&limit=2", HttpMethod.GET,
+                new HttpEntity<>(ifNoneMatch(eTag)), String.class);
+
+        assertThat(first.getBody().hasNonNull("nextCursor")).isTrue();
+        assertThat(cached.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(cachedStatements).isEqualTo(1);
+        assertThat(otherLimit.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(laterRowAdded.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(pageRowChanged.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void findFacultiesByColorETagTellsApartPagesWithEqualVersionSums() {
+        Faculty first = facultyRepository.save(new Faculty(0, "Первый синий", "Синий"));
+        Faculty second = facultyRepository.save(new Faculty(0, "Второй синий", "Синий"));
+        // Версии выставляются напрямую: до и после суммы id и версий страницы совпадают
+        jdbcTemplate.update("update faculty set version = 1, name = ? where id = ?", "Первый синий 1", first.getId());
+        entityManagerFactory.getCache().evictAll();
+        String eTag = restTemplate.getForEntity("/faculty?color=Синий", JsonNode.class).getHeaders().getETag();
+
+        jdbcTemplate.update("update faculty set version = 0, name = ? where id = ?", "Первый синий", first.getId());
+        jdbcTemplate.update("update faculty set version = 1, name = ? where id = ?", "Второй синий 1", second.getId());
+        entityManagerFactory.getCache().evictAll();
+        ResponseEntity<JsonNode> changed = restTemplate.exchange("/faculty?color=Синий", HttpMethod.GET,
+                new HttpEntity<>(ifNoneMatch(eTag)), JsonNode.class);
+
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changed.getBody().get("items").get(1).get("name").asText()).isEqualTo("Второй синий 1");
+        assertThat(changed.getHeaders().getETag()).isNotEqualTo(eTag);
+    }
+
+    private static HttpHeaders ifNoneMatch(String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        return headers;
+    }
+
+    @Test
+    void repeatedFacultyReadsAreServedFromCache() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Faculty saved = facultyRepository.save(new Faculty(0, "Когтевран", "Синий"));
+        restTemplate.getForEntity("/faculty/" + saved.getId(), Faculty.class);
+
+        statistics.clear();
+        ResponseEntity<Faculty> cached = restTemplate.getForEntity("/faculty/" + saved.getId(), Faculty.class);
+
+        assertThat(cached.getBody().getName()).isEqualTo("Когтевран");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void repeatedSearchIsServedFromQueryCacheUntilFacultiesChange() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        facultyRepository.save(new Faculty(0, "Гриффиндор", "Красный"));
+        facultyRepository.save(new Faculty(0, "Слизерин", "Зеленый"));
+        restTemplate.getForEntity("/faculty/search?param=гри", JsonNode.class);
+
+        statistics.clear();
+        ResponseEntity<JsonNode> cached = restTemplate.getForEntity("/faculty/search?param=гри", JsonNode.class);
+        long cachedStatements = statistics.getPrepareStatementCount();
+        long queryCacheHits = statistics.getQueryCacheHitCount();
+
+        facultyRepository.save(new Faculty(0, "Гринготтс", "Золотой"));
+        ResponseEntity<JsonNode> changed = restTemplate.getForEntity("/faculty/search?param=гри", JsonNode.class);
+
+        assertThat(cached.getBody().get("items")).hasSize(1);
+        assertThat(cachedStatements).isZero();
+        assertThat(queryCacheHits).isEqualTo(1);
+        assertThat(changed.getBody().get("items")).hasSize(2);
+    }
+
+    @Test
+    void getFacultiesByIdsReportsMissingIds() {
+        Faculty first = facultyRepository.save(new Faculty(0, "Гриффиндор", "Красный"));
+        Faculty second = facultyRepository.save(new Faculty(0, "Слизерин", "Зеленый"));
+
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity(
+                "/faculty/batch?ids=" + second.getId() + ",0," + first.getId(), JsonNode.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("items").get(0).get("name").asText()).isEqualTo("Слизерин");
+        assertThat(response.getBody().get("items").get(1).get("name").asText()).isEqualTo("Гриффиндор");
+        assertThat(response.getBody().get("missingIds").get(0).asLong()).isZero();
+    }
+
+    @Test
+    void editFacultyWithVersionIsSingleUpdate() {
+        Faculty saved = facultyRepository.save(new Faculty(0, "Хаффлпафф", "Желтый"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        FacultyEditRequest request = new FacultyEditRequest();
+        request.setId(saved.getId());
+        request.setName("Пуффендуй");
+        request.setColor("Желтый");
+        request.setVersion(saved.getVersion());
+
+        statistics.clear();
+        ResponseEntity<Faculty> response = restTemplate.exchange("/faculty", HttpMethod.PUT,
+                new HttpEntity<>(request), Faculty.class);
+        long statements = statistics.getPrepareStatementCount();
+        ResponseEntity<String> stale = restTemplate.exchange("/faculty", HttpMethod.PUT,
+                new HttpEntity<>(request), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(statements).isEqualTo(1);
+        assertThat(response.getBody().getVersion()).isEqualTo(saved.getVersion() + 1);
+        assertThat(stale.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(restTemplate.getForObject("/faculty/" + saved.getId(), Faculty.class).getName())
+                .isEqualTo("Пуффендуй");
+    }
+
+    @Test
+    void deleteFacultyIsSingleDelete() {
+        Faculty saved = facultyRepository.save(new Faculty(0, "Факультет для удаления", "Белый"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        ResponseEntity<Void> deleted = restTemplate.exchange("/faculty/" + saved.getId(), HttpMethod.DELETE,
+                null, Void.class);
+        long statements = statistics.getPrepareStatementCount();
+        ResponseEntity<String> missing = restTemplate.exchange("/faculty/" + saved.getId(), HttpMethod.DELETE,
+                null, String.class);
+
+        assertThat(deleted.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(statements).isEqualTo(1);
+        assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(restTemplate.getForEntity("/search?query=удален", JsonNode.class).getBody()).isEmpty();
+    }
 }
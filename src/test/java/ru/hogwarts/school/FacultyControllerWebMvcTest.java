@@ -9,6 +9,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.hogwarts.school.controller.FacultyController;
+import ru.hogwarts.school.dto.CursorPage;
 import ru.hogwarts.school.dto.FacultyCreateRequest;
 import ru.hogwarts.school.dto.FacultyEditRequest;
 import ru.hogwarts.school.dto.StudentResponse;
@@ -72,7 +73,8 @@ public class FacultyControllerWebMvcTest {
 
         Faculty faculty = new Faculty(1, request.getName(), request.getColor());
 
-        Mockito.when(facultyService.editFaculty(request.getId(), request.getName(), request.getColor()))
+        Mockito.when(facultyService.editFaculty(request.getId(), request.getName(), request.getColor(),
+                request.getVersion()))
                 .thenReturn(faculty);
 
         mockMvc.perform(put("/faculty")
@@ -95,11 +97,12 @@ public class FacultyControllerWebMvcTest {
         String color = "Красный";
         Faculty faculty = new Faculty(1, "Гриффиндор", color);
 
-        Mockito.when(facultyService.findFacultiesByColor(color)).thenReturn(List.of(faculty));
+        Mockito.when(facultyService.findFacultiesByColor(color, null, 20))
+                .thenReturn(new CursorPage<>(List.of(faculty), null));
 
         mockMvc.perform(get("/faculty").param("color", color))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].name").value("Гриффиндор"));
+                .andExpect(jsonPath("$.items[0].name").value("Гриффиндор"));
     }
 
     @Test
@@ -107,11 +110,12 @@ public class FacultyControllerWebMvcTest {
         String param = "гри";
         Faculty faculty = new Faculty(1, "Гриффиндор", "Красный");
 
-        Mockito.when(facultyService.findFacultiesByNameOrColorPartial(param)).thenReturn(List.of(faculty));
+        Mockito.when(facultyService.findFacultiesByNameOrColorPartial(param, null, 20))
+                .thenReturn(new CursorPage<>(List.of(faculty), null));
 
         mockMvc.perform(get("/faculty/search").param("param", param))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].name").value("Гриффиндор"));
+                .andExpect(jsonPath("$.items[0].name").value("Гриффиндор"));
     }
 
     @Test
@@ -0,0 +1,90 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import ru.hogwarts.school.dto.AvatarMetadata;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.storage.AvatarStore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.hogwarts.school.AvatarUploads.content;
+import static ru.hogwarts.school.AvatarUploads.upload;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:avatar-memory;DB_CLOSE_DELAY=-1",
+        "avatar.store=memory"
+})
+public class InMemoryAvatarStoreTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private AvatarRepository avatarRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private AvatarStore avatarStore;
+
+    @BeforeEach
+    void cleanDb() {
+        avatarRepository.deleteAll();
+        studentRepository.deleteAll();
+    }
+
+    @Test
+    void uploadKeepsOnlyMetadataInDatabase() {
+        Student student = studentRepository.save(new Student(0, "Студент в памяти", 20));
+        byte[] content = content(800);
+        upload(restTemplate, student.getId(), content);
+
+        Avatar avatar = avatarRepository.findByStudentId(student.getId()).orElseThrow();
+
+        assertThat(avatar.getFilePath()).isNull();
+        assertThat(avatar.getData()).isNull();
+        assertThat(avatar.getFileSize()).isEqualTo(content.length);
+    }
+
+    @Test
+    void reuploadReplacesContent() {
+        Student student = studentRepository.save(new Student(0, "Студент с новой картинкой", 20));
+        upload(restTemplate, student.getId(), content(300));
+        String firstETag = restTemplate.getForEntity("/avatar/file/" + student.getId(), byte[].class)
+                .getHeaders().getETag();
+        byte[] replaced = content(400);
+        upload(restTemplate, student.getId(), replaced);
+
+        ResponseEntity<byte[]> response = restTemplate.getForEntity("/avatar/db/" + student.getId(), byte[].class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getLastModified()).isPositive();
+        assertThat(response.getHeaders().getETag()).isNotEqualTo(firstETag);
+        assertThat(response.getBody()).isEqualTo(replaced);
+    }
+
+    @Test
+    void deleteStudentRemovesContentFromMemory() throws Exception {
+        Student student = studentRepository.save(new Student(0, "Удаляемый студент в памяти", 20));
+        upload(restTemplate, student.getId(), content(500));
+        AvatarMetadata avatar = avatarRepository.findMetadataByStudentId(student.getId()).orElseThrow();
+        assertThat(avatarStore.read(avatar)).isPresent();
+
+        restTemplate.delete("/student/" + student.getId());
+
+        assertThat(avatarRepository.findByStudentId(student.getId())).isEmpty();
+        assertThat(avatarStore.read(avatar)).isEmpty();
+    }
+}
@@ -0,0 +1,61 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class InfoControllerTest {
+
+    private static final long N = 2_000_000L;
+    private static final long EXPECTED = N * (N + 1) / 2;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void computeSumWithEveryMethod() {
+        for (String method : new String[]{"formula", "iterate", "sequential", "range"}) {
+            ResponseEntity<SumResultView> response = restTemplate.getForEntity(
+                    "/sum?method=" + method + "&n=" + N + "&parallelism=2", SumResultView.class);
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getBody().result()).isEqualTo(EXPECTED);
+            assertThat(response.getBody().method()).isEqualTo(method);
+            assertThat(response.getBody().parallelism()).isEqualTo(2);
+            assertThat(response.getBody().threadsUsed()).isBetween(1, 2);
+            assertThat(response.getBody().elapsedMillis()).isNotNegative();
+        }
+    }
+
+    @Test
+    void computeSumRejectsInvalidParameters() {
+        ResponseEntity<Map> badMethod = restTemplate.getForEntity("/sum?method=magic", Map.class);
+        ResponseEntity<Map> badN = restTemplate.getForEntity("/sum?n=0", Map.class);
+        ResponseEntity<Map> badParallelism = restTemplate.getForEntity("/sum?parallelism=100000", Map.class);
+        ResponseEntity<Map> aboveThePool = restTemplate.getForEntity("/sum?parallelism=5", Map.class);
+        ResponseEntity<Map> tooLongIteration = restTemplate.getForEntity("/sum?method=iterate&n=10000001", Map.class);
+        ResponseEntity<Map> longRange = restTemplate.getForEntity("/sum?method=range&n=10000001&parallelism=4",
+                Map.class);
+
+        assertThat(badMethod.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(badN.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(badParallelism.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(aboveThePool.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(tooLongIteration.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(longRange.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    record SumResultView(String method, long n, int parallelism, long result, double elapsedMillis,
+                         int threadsUsed) {
+    }
+}
@@ -0,0 +1,15 @@
+package ru.hogwarts.school;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:load-inline;DB_CLOSE_DELAY=-1",
+        "student.async.threads=0"
+})
+public class InlineReadsLoadTest extends AsyncReadsLoadTest {
+
+    @Override
+    protected String mode() {
+        return "reads on request threads";
+    }
+}
@@ -0,0 +1,14 @@
+package ru.hogwarts.school;
+
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:load-platform;DB_CLOSE_DELAY=-1")
+public class PlatformThreadsLoadTest extends RequestThreadsLoadTest {
+
+    @Override
+    protected String mode() {
+        return "platform threads";
+    }
+}
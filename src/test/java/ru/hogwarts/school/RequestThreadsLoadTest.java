@@ -0,0 +1,130 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Общая часть нагрузочного теста: {@value #CONCURRENCY} клиентов одновременно выполняют
+ * {@value #REQUESTS} запросов к эндпоинтам, которые ходят в базу. Пул Tomcat намеренно
+ * меньше числа клиентов. Результат (пропускная способность и p99) пишется в лог с тегом режима.
+ * Запуск: {@code mvn -Pjava21,load-test test}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.tomcat.threads.max=32",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=false",
+        "logging.level.ru.hogwarts.school=WARN"
+})
+abstract class RequestThreadsLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestThreadsLoadTest.class);
+
+    static final int CONCURRENCY = 256;
+    static final int REQUESTS = 5_000;
+    private static final int WARM_UP_REQUESTS = 500;
+    private static final int STUDENTS = 1_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private FacultyRepository facultyRepository;
+
+    private final List<URI> targets = new ArrayList<>();
+
+    protected abstract String mode();
+
+    @BeforeEach
+    void seed() {
+        studentRepository.deleteAll();
+        facultyRepository.deleteAll();
+        Faculty faculty = facultyRepository.save(new Faculty(0, "Нагрузочный", "Серый"));
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            students.add(new Student(0, "Нагрузочный студент " + i, 16 + i % 10, faculty));
+        }
+        List<Student> saved = studentRepository.saveAll(students);
+
+        String base = "http://localhost:" + port;
+        targets.clear();
+        paths(faculty, saved).forEach(path -> targets.add(URI.create(base + path)));
+    }
+
+    protected List<String> paths(Faculty faculty, List<Student> students) {
+        return List.of(
+                "/student?age=18&limit=20",
+                "/student/ageBetween?min=17&max=19&limit=50",
+                "/faculty/" + faculty.getId() + "/students",
+                "/faculty?color=Серый&limit=20");
+    }
+
+    @Test
+    void reportThroughputAndP99Latency() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        HttpClient httpClient = HttpClient.newHttpClient();
+        try {
+            run(httpClient, clients, WARM_UP_REQUESTS);
+
+            long started = System.nanoTime();
+            long[] latencies = run(httpClient, clients, REQUESTS);
+            long elapsed = System.nanoTime() - started;
+
+            Arrays.sort(latencies);
+            double throughput = REQUESTS / (elapsed / 1e9);
+            double p99Millis = latencies[(int) Math.ceil(REQUESTS * 0.99) - 1] / 1e6;
+            double p50Millis = latencies[REQUESTS / 2] / 1e6;
+            logger.warn("[{}] concurrency={}, requests={}, throughput={} req/s, p50={} ms, p99={} ms",
+                    mode(), CONCURRENCY, REQUESTS, String.format("%.0f", throughput),
+                    String.format("%.1f", p50Millis), String.format("%.1f", p99Millis));
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private long[] run(HttpClient httpClient, ExecutorService clients, int requests) throws Exception {
+        List<Callable<Long>> calls = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            HttpRequest request = HttpRequest.newBuilder(targets.get(i % targets.size())).GET().build();
+            calls.add(() -> {
+                long started = System.nanoTime();
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                assertThat(response.statusCode()).isEqualTo(200);
+                return System.nanoTime() - started;
+            });
+        }
+        List<Future<Long>> results = clients.invokeAll(calls);
+        long[] latencies = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            latencies[i] = results.get(i).get();
+        }
+        return latencies;
+    }
+}
@@ -0,0 +1,136 @@
+package ru.hogwarts.school;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class SearchControllerTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private FacultyRepository facultyRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private AvatarRepository avatarRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void cleanDb() {
+        avatarRepository.deleteAll();
+        studentRepository.deleteAll();
+        facultyRepository.deleteAll();
+    }
+
+    @Test
+    void searchRanksMatchesWithoutQueryingDatabase() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Faculty gryffindor = facultyRepository.save(new Faculty(0, "Гриффиндор", "Красный"));
+        facultyRepository.save(new Faculty(0, "Слизерин", "Зеленый"));
+        Student neville = studentRepository.save(new Student(0, "Гриффин Лонгботтом", 17, gryffindor));
+        Student ginny = studentRepository.save(new Student(0, "Джинни Гриффит", 16, gryffindor));
+        studentRepository.save(new Student(0, "Гарри Поттер", 17, gryffindor));
+
+        statistics.clear();
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity("/search?query=ГРИФ", JsonNode.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(describe(response.getBody())).containsExactly(
+                "faculty:" + gryffindor.getId() + ":name:Гриффиндор",
+                "student:" + neville.getId() + ":name:Гриффин Лонгботтом",
+                "student:" + ginny.getId() + ":name:Джинни Гриффит");
+    }
+
+    @Test
+    void searchMatchesFacultyColorOnceAndHonoursLimit() {
+        Faculty slytherin = facultyRepository.save(new Faculty(0, "Слизерин", "Зеленый"));
+        facultyRepository.save(new Faculty(0, "Зелье", "Зеленый"));
+
+        ResponseEntity<JsonNode> byColor = restTemplate.getForEntity("/search?query=зел", JsonNode.class);
+        ResponseEntity<JsonNode> limited = restTemplate.getForEntity("/search?query=зел&limit=1", JsonNode.class);
+
+        assertThat(describe(byColor.getBody())).hasSize(2).contains(
+                "faculty:" + slytherin.getId() + ":color:Зеленый");
+        assertThat(limited.getBody()).hasSize(1);
+    }
+
+    @Test
+    void searchRanksWordStartBehindEarlierInnerMatch() {
+        Student inner = studentRepository.save(new Student(0, "Эгрифа", 16));
+        Student wordStart = studentRepository.save(new Student(0, "Пэгриф Гриффит", 17));
+
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity("/search?query=гриф", JsonNode.class);
+
+        assertThat(describe(response.getBody())).containsExactly(
+                "student:" + wordStart.getId() + ":name:Пэгриф Гриффит",
+                "student:" + inner.getId() + ":name:Эгрифа");
+    }
+
+    @Test
+    void searchFollowsWrites() {
+        Faculty ravenclaw = facultyRepository.save(new Faculty(0, "Когтевран", "Синий"));
+        Student student = studentRepository.save(new Student(0, "Полумна Лавгуд", 14, ravenclaw));
+
+        student.setName("Чжоу Чанг");
+        studentRepository.save(student);
+        ResponseEntity<JsonNode> renamedOld = restTemplate.getForEntity("/search?query=лавгуд", JsonNode.class);
+        ResponseEntity<JsonNode> renamedNew = restTemplate.getForEntity("/search?query=чанг", JsonNode.class);
+
+        studentRepository.deleteById(student.getId());
+        ResponseEntity<JsonNode> deleted = restTemplate.getForEntity("/search?query=чанг", JsonNode.class);
+
+        assertThat(renamedOld.getBody()).isEmpty();
+        assertThat(describe(renamedNew.getBody())).containsExactly(
+                "student:" + student.getId() + ":name:Чжоу Чанг");
+        assertThat(deleted.getBody()).isEmpty();
+    }
+
+    @Test
+    void searchRejectsBlankQuery() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/search?query=  ", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void searchRejectsQueryShorterThanTrigram() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/search?query= ин ", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private static List<String> describe(JsonNode matches) {
+        List<String> described = new ArrayList<>();
+        matches.forEach(match -> described.add(match.get("type").asText() + ":" + match.get("id").asLong()
+                + ":" + match.get("field").asText() + ":" + match.get("value").asText()));
+        return described;
+    }
+}
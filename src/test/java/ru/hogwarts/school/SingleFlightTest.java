@@ -0,0 +1,94 @@
+package ru.hogwarts.school;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.hogwarts.school.service.SingleFlight;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 16;
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void concurrentCallsShareOneComputation() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(registry, Duration.ZERO);
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("count", () -> {
+                    await(release);
+                    return computations.incrementAndGet();
+                })));
+            }
+            while (calls("count", "coalesced") < CALLERS - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(computations).hasValue(1);
+        assertThat(calls("count", "leader")).isEqualTo(1);
+
+        assertThat(singleFlight.execute("count", computations::incrementAndGet)).isEqualTo(2);
+    }
+
+    @Test
+    void freshResultIsReusedWithinWindow() {
+        SingleFlight singleFlight = new SingleFlight(registry, Duration.ofMinutes(1));
+        AtomicInteger computations = new AtomicInteger();
+
+        singleFlight.execute("longestName", computations::incrementAndGet);
+        Integer second = singleFlight.execute("longestName", computations::incrementAndGet);
+
+        assertThat(second).isEqualTo(1);
+        assertThat(calls("longestName", "fresh")).isEqualTo(1);
+    }
+
+    @Test
+    void failureIsNotRemembered() {
+        SingleFlight singleFlight = new SingleFlight(registry, Duration.ofMinutes(1));
+
+        assertThatThrownBy(() -> singleFlight.execute("lastFive", () -> {
+            throw new IllegalStateException("база недоступна");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(singleFlight.execute("lastFive", () -> "ok")).isEqualTo("ok");
+        assertThat(calls("lastFive", "leader")).isEqualTo(2);
+    }
+
+    private double calls(String key, String result) {
+        return registry.counter(SingleFlight.METRIC, "key", key, "result", result).count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package ru.hogwarts.school;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,15 +12,27 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import ru.hogwarts.school.dto.StudentCreateRequest;
+import ru.hogwarts.school.dto.FacultyEditRequest;
 import ru.hogwarts.school.dto.StudentEditRequest;
+import ru.hogwarts.school.dto.StudentImportError;
+import ru.hogwarts.school.dto.StudentImportResult;
+import ru.hogwarts.school.dto.StudentStatisticsResponse;
+import ru.hogwarts.school.model.Avatar;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarRepository;
 import ru.hogwarts.school.repository.FacultyRepository;
 import ru.hogwarts.school.repository.StudentRepository;
 import ru.hogwarts.school.service.FacultyService;
 import ru.hogwarts.school.service.StudentService;
+import ru.hogwarts.school.service.StudentStatisticsService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -32,6 +49,9 @@ public class StudentControllerTest {
     @Autowired
     private StudentRepository studentRepository;
 
+    @Autowired
+    private AvatarRepository avatarRepository;
+
     @Autowired
     private FacultyRepository facultyRepository;
 
@@ -41,10 +61,22 @@ public class StudentControllerTest {
     @Autowired
     private FacultyService facultyService;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private StudentStatisticsService studentStatisticsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeEach
     void cleanDb() {
+        avatarRepository.deleteAll();
         studentRepository.deleteAll();
         facultyRepository.deleteAll();
+        // Правка и удаление запросами update/delete оставляют статистику устаревшей до следующего чтения
+        studentStatisticsService.reconcile();
     }
 
     @Test
@@ -82,6 +114,27 @@ public class StudentControllerTest {
         assertThat(response.getBody().getName()).isEqualTo("Студент");
     }
 
+    @Test
+    void getStudentAnswersNotModifiedWithoutLoadingEntity() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Student saved = studentRepository.save(new Student(0, "Студент с версией", 19));
+
+        ResponseEntity<Student> first = restTemplate.getForEntity("/student/" + saved.getId(), Student.class);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(first.getHeaders().getETag());
+
+        statistics.clear();
+        ResponseEntity<String> cached = restTemplate.exchange("/student/" + saved.getId(), HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        ResponseEntity<String> missing = restTemplate.exchange("/student/" + (saved.getId() + 1000), HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+
+        assertThat(first.getHeaders().getETag()).isEqualTo("\"" + saved.getId() + "-0\"");
+        assertThat(cached.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
     @Test
     void editStudent() {
         Faculty faculty = new Faculty();
@@ -124,11 +177,12 @@ public class StudentControllerTest {
         studentRepository.save(new Student(0, "Студент молодой", 18));
         studentRepository.save(new Student(0, "Студент старый", 30));
 
-        ResponseEntity<Student[]> response = restTemplate.getForEntity("/student?age=18", Student[].class);
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity("/student?age=18", JsonNode.class);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody()).hasSize(1);
-        assertThat(response.getBody()[0].getAge()).isEqualTo(18);
+        assertThat(response.getBody().get("items")).hasSize(1);
+        assertThat(response.getBody().get("items").get(0).get("age").asInt()).isEqualTo(18);
+        assertThat(response.getBody().has("nextCursor")).isFalse();
     }
 
     @Test
@@ -150,14 +204,15 @@ public class StudentControllerTest {
         student2.setFaculty(faculty);
         student2 = studentRepository.save(student2);
 
-        ResponseEntity<Student[]> response = restTemplate.getForEntity(
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity(
                 "/student/ageBetween?min=18&max=25",
-                Student[].class);
+                JsonNode.class);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody()).hasSize(2);
-        assertThat(response.getBody()[0].getName()).isEqualTo("Студент не младше");
-        assertThat(response.getBody()[1].getName()).isEqualTo("Студент не старше");
+        JsonNode items = response.getBody().get("items");
+        assertThat(items).hasSize(2);
+        assertThat(items.get(0).get("name").asText()).isEqualTo("Студент не младше");
+        assertThat(items.get(1).get("name").asText()).isEqualTo("Студент не старше");
     }
 
     @Test
@@ -181,4 +236,554 @@ public class StudentControllerTest {
         assertThat(response.getBody().getName()).isEqualTo("Гриффендор");
         assertThat(response.getBody().getColor()).isEqualTo("Красный");
     }
-}
\ No newline at end of file
+
+    @Test
+    void findStudentsByAgeKeepsQueryAndRowCountConstantAsTableGrows() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        saveStudents("Студент семнадцати лет", 17, 3);
+        saveStudents("Студент двадцати лет", 20, 10);
+
+        statistics.clear();
+        ResponseEntity<JsonNode> small = restTemplate.getForEntity("/student?age=17", JsonNode.class);
+        long smallStatements = statistics.getPrepareStatementCount();
+        long smallLoads = statistics.getEntityLoadCount();
+
+        saveStudents("Студент тридцати лет", 30, 500);
+
+        statistics.clear();
+        ResponseEntity<JsonNode> large = restTemplate.getForEntity("/student?age=17", JsonNode.class);
+
+        assertThat(small.getBody().get("items")).hasSize(3);
+        assertThat(large.getBody().get("items")).hasSize(3);
+        assertThat(smallStatements).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(smallStatements);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(smallLoads);
+    }
+
+    @Test
+    void findStudentsWithoutLimitReturnsDefaultPage() {
+        saveStudents("Студент постранично", 18, 25);
+
+        ResponseEntity<JsonNode> byAge = restTemplate.getForEntity("/student?age=18", JsonNode.class);
+        ResponseEntity<JsonNode> byRange = restTemplate.getForEntity("/student/ageBetween?min=17&max=19",
+                JsonNode.class);
+
+        assertThat(byAge.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(byAge.getBody().get("items")).hasSize(20);
+        assertThat(byAge.getBody().hasNonNull("nextCursor")).isTrue();
+        assertThat(byRange.getBody().get("items")).hasSize(20);
+        assertThat(byRange.getBody().hasNonNull("nextCursor")).isTrue();
+    }
+
+    @Test
+    void findStudentsDoesNotLoadAvatars() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Student student = studentRepository.save(new Student(0, "Студент с аватаром", 18));
+        Avatar avatar = new Avatar();
+        avatar.setStudent(student);
+        avatar.setFilePath("avatars/1.png");
+        avatar.setFileSize(4096);
+        avatar.setMediaType("image/png");
+        avatar.setData(new byte[4096]);
+        avatarRepository.save(avatar);
+
+        statistics.clear();
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity("/student?age=18", JsonNode.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("items")).hasSize(1);
+        assertThat(response.getBody().get("items").get(0).has("avatar")).isFalse();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1L);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void findStudentsByAgeWithCursor() {
+        saveStudents("Студент по курсору", 18, 5);
+        saveStudents("Студент другого возраста", 19, 2);
+
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            String url = "/student?age=18&limit=2" + (cursor != null ? "&cursor=" + cursor : "");
+            ResponseEntity<JsonNode> response = restTemplate.getForEntity(url, JsonNode.class);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            response.getBody().get("items").forEach(item -> names.add(item.get("name").asText()));
+            cursor = response.getBody().hasNonNull("nextCursor") ? response.getBody().get("nextCursor").asText() : null;
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(names).containsExactly("Студент по курсору 0", "Студент по курсору 1",
+                "Студент по курсору 2", "Студент по курсору 3", "Студент по курсору 4");
+    }
+
+    @Test
+    void findStudentsByAgeBetweenWithCursorUsesSingleStatementPerPage() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        saveStudents("Студент диапазона", 20, 300);
+
+        ResponseEntity<JsonNode> first = restTemplate.getForEntity("/student/ageBetween?min=19&max=21&limit=100",
+                JsonNode.class);
+        String cursor = first.getBody().get("nextCursor").asText();
+        ResponseEntity<JsonNode> second = restTemplate.getForEntity("/student/ageBetween?min=19&max=21&limit=100&cursor="
+                + cursor, JsonNode.class);
+
+        statistics.clear();
+        ResponseEntity<JsonNode> third = restTemplate.getForEntity("/student/ageBetween?min=19&max=21&limit=100&cursor="
+                + second.getBody().get("nextCursor").asText(), JsonNode.class);
+
+        assertThat(first.getBody().get("items")).hasSize(100);
+        assertThat(second.getBody().get("items").get(0).get("name").asText()).isEqualTo("Студент диапазона 100");
+        assertThat(third.getBody().get("items")).hasSize(100);
+        assertThat(third.getBody().has("nextCursor")).isFalse();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findStudentsWithCursorBoundsLimitAndRejectsBadCursor() {
+        saveStudents("Студент лимита", 18, 120);
+
+        ResponseEntity<JsonNode> page = restTemplate.getForEntity("/student?age=18&limit=1000", JsonNode.class);
+        ResponseEntity<JsonNode> bad = restTemplate.getForEntity("/student?age=18&cursor=не-курсор", JsonNode.class);
+
+        assertThat(page.getBody().get("items")).hasSize(100);
+        assertThat(page.getBody().hasNonNull("nextCursor")).isTrue();
+        assertThat(bad.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void createStudentResolvesFacultyWithoutQuery() {
+        facultyRepository.save(new Faculty(0, "Когтевран", "Синий"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        StudentCreateRequest request = new StudentCreateRequest();
+        request.setName("Студент Когтеврана");
+        request.setAge(17);
+        request.setFaculty("СИНИЙ");
+
+        statistics.clear();
+        ResponseEntity<Student> response = restTemplate.postForEntity("/student", request, Student.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(statistics.getQueryExecutionCount()).isZero();
+        assertThat(studentRepository.findById(response.getBody().getId()).orElseThrow().getFaculty().getName())
+                .isEqualTo("Когтевран");
+    }
+
+    @Test
+    void createStudentFollowsFacultyChanges() {
+        Faculty faculty = facultyRepository.save(new Faculty(0, "Старое имя", "Серый"));
+        FacultyEditRequest edit = new FacultyEditRequest();
+        edit.setId(faculty.getId());
+        edit.setName("Новое имя");
+        edit.setColor("Серый");
+        restTemplate.put("/faculty", edit);
+
+        StudentCreateRequest request = new StudentCreateRequest();
+        request.setName("Студент переименованного факультета");
+        request.setAge(18);
+        request.setFaculty("старое имя");
+        assertThat(restTemplate.postForEntity("/student", request, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+
+        request.setFaculty("новое имя");
+        assertThat(restTemplate.postForEntity("/student", request, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.CREATED);
+
+        studentRepository.deleteAll();
+        restTemplate.delete("/faculty/" + faculty.getId());
+        request.setName("Студент удаленного факультета");
+        assertThat(restTemplate.postForEntity("/student", request, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void getStudentNamesStartWithUsesIndex() {
+        studentRepository.save(new Student(0, "Гермиона", 17));
+        studentRepository.save(new Student(0, "гарри", 17));
+        studentRepository.save(new Student(0, "Драко", 17));
+        Student ron = studentRepository.save(new Student(0, "Рон", 17));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        ResponseEntity<String[]> response = restTemplate.getForEntity("/student/names/startWith?letter=г",
+                String[].class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).containsExactly("ГАРРИ", "ГЕРМИОНА");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        assertThat(restTemplate.getForEntity("/student/names/startWith?letter=Г&limit=1", String[].class).getBody())
+                .containsExactly("ГАРРИ");
+
+        ron.setName("Гойл");
+        studentRepository.save(ron);
+        studentRepository.deleteById(studentRepository.findAll().stream()
+                .filter(s -> s.getName().equals("гарри")).findFirst().orElseThrow().getId());
+
+        assertThat(restTemplate.getForEntity("/student/names/startWith?letter=Г", String[].class).getBody())
+                .containsExactly("ГЕРМИОНА", "ГОЙЛ");
+        assertThat(restTemplate.getForEntity("/student/names/startWith?letter=Р", String[].class).getBody())
+                .isEmpty();
+    }
+
+    @Test
+    void statisticsAreAnsweredWithoutQueries() {
+        saveStudents("Студент статистики", 18, 2);
+        saveStudents("Студент статистики постарше", 24, 2);
+        studentService.getStatistics();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        Long count = restTemplate.getForObject("/student/count", Long.class);
+        Double averageAge = restTemplate.getForObject("/student/averageAge", Double.class);
+        Double averageAgeCalculated = restTemplate.getForObject("/student/averageAgeCalculated", Double.class);
+        StudentStatisticsResponse response = restTemplate.getForObject("/student/statistics",
+                StudentStatisticsResponse.class);
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(count).isEqualTo(4);
+        assertThat(averageAge).isEqualTo(21.0);
+        assertThat(averageAgeCalculated).isEqualTo(21.0);
+        assertThat(response.getMinAge()).isEqualTo(18);
+        assertThat(response.getMaxAge()).isEqualTo(24);
+    }
+
+    @Test
+    void statisticsFollowEditsAndDeletes() {
+        saveStudents("Студент для правки", 20, 2);
+        Student student = studentRepository.save(new Student(0, "Самый старший", 40));
+
+        student.setAge(30);
+        studentRepository.save(student);
+        assertThat(restTemplate.getForObject("/student/averageAge", Double.class)).isEqualTo(70.0 / 3);
+
+        studentRepository.deleteById(student.getId());
+        StudentStatisticsResponse response = restTemplate.getForObject("/student/statistics",
+                StudentStatisticsResponse.class);
+        assertThat(response.getCount()).isEqualTo(2);
+        assertThat(response.getMaxAge()).isEqualTo(20);
+    }
+
+    @Test
+    void statisticsReconcileWithDatabase() {
+        saveStudents("Студент до сверки", 20, 2);
+        jdbcTemplate.update("update student set age = 26 where name = ?", "Студент до сверки 0");
+        assertThat(restTemplate.getForObject("/student/averageAge", Double.class)).isEqualTo(20.0);
+
+        studentStatisticsService.reconcile();
+
+        assertThat(restTemplate.getForObject("/student/averageAge", Double.class)).isEqualTo(23.0);
+    }
+
+    @Test
+    void importStudentsReportsRowErrors() {
+        facultyRepository.save(new Faculty(0, "Гриффиндор", "Красный"));
+        studentRepository.save(new Student(0, "Уже учится", 20));
+
+        List<StudentCreateRequest> requests = List.of(
+                createRequest("Импортированный 1", 17, "Гриффиндор"),
+                createRequest("Импортированный 2", 18, "красный"),
+                createRequest("Без факультета", 18, "Несуществующий"),
+                createRequest("Импортированный 1", 19, "Гриффиндор"),
+                createRequest("Слишком юный", 10, "Гриффиндор"),
+                createRequest("", 18, "Гриффиндор"),
+                createRequest("Уже учится", 18, "Гриффиндор"),
+                createRequest("Импортированный 3", 20, "Гриффиндор"));
+
+        ResponseEntity<StudentImportResult> response = restTemplate.postForEntity("/student/bulk", requests,
+                StudentImportResult.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getTotal()).isEqualTo(8);
+        assertThat(response.getBody().getImported()).isEqualTo(3);
+        assertThat(response.getBody().getErrors())
+                .extracting(StudentImportError::getRow)
+                .containsExactly(3, 4, 5, 6, 7);
+        assertThat(response.getBody().isErrorsTruncated()).isFalse();
+        assertThat(studentRepository.count()).isEqualTo(4);
+        assertThat(restTemplate.getForObject("/student/count", Long.class)).isEqualTo(4);
+    }
+
+    @Test
+    void importStudentsReportsNullRowsAndCapsErrors() {
+        facultyRepository.save(new Faculty(0, "Гриффиндор", "Красный"));
+        List<StudentCreateRequest> requests = new ArrayList<>();
+        requests.add(null);
+        for (int i = 0; i < 150; i++) {
+            requests.add(createRequest("Слишком юный " + i, 10, "Гриффиндор"));
+        }
+
+        StudentImportResult result = restTemplate.postForObject("/student/bulk", requests, StudentImportResult.class);
+
+        assertThat(result.getTotal()).isEqualTo(151);
+        assertThat(result.getImported()).isZero();
+        assertThat(result.getErrors()).hasSize(100);
+        assertThat(result.getErrors().get(0).getRow()).isEqualTo(1);
+        assertThat(result.getErrors().get(0).getMessage()).isEqualTo("Ожидается объект студента");
+        assertThat(result.isErrorsTruncated()).isTrue();
+    }
+
+    @Test
+    void importStudentsReportsDatabaseErrorCause() {
+        facultyRepository.save(new Faculty(0, "Гриффиндор", "Красный"));
+        List<StudentCreateRequest> requests = List.of(
+                createRequest("Студент с пробелами в факультете", 18, "  гриффиндор "),
+                createRequest("Длинное имя ".repeat(30), 18, "Гриффиндор"));
+
+        StudentImportResult result = restTemplate.postForObject("/student/bulk", requests, StudentImportResult.class);
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(StudentImportError::getRow).containsExactly(2);
+        assertThat(result.getErrors().get(0).getMessage())
+                .startsWith("Студент не сохранен: ")
+                .contains("Value too long");
+    }
+
+    @Test
+    void importStudentsFromCsv() {
+        facultyRepository.save(new Faculty(0, "Слизерин", "Зеленый"));
+        String csv = "name,age,faculty\n" +
+                "Студент из файла 1,17,Слизерин\n" +
+                "Студент из файла 2;18;зеленый\n" +
+                "Студент из файла 3,не число,Слизерин\n" +
+                "Неполная строка,18\n";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+
+        ResponseEntity<StudentImportResult> response = restTemplate.postForEntity("/student/bulk",
+                new HttpEntity<>(csv, headers), StudentImportResult.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getImported()).isEqualTo(2);
+        assertThat(response.getBody().getErrors())
+                .extracting(StudentImportError::getRow)
+                .containsExactly(4, 5);
+    }
+
+    @Test
+    void importStudentsUsesJdbcBatching() {
+        facultyRepository.save(new Faculty(0, "Пуффендуй", "Желтый"));
+        List<StudentCreateRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            requests.add(createRequest("Студент партии " + i, 16 + i % 10, "Пуффендуй"));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        StudentImportResult result = restTemplate.postForObject("/student/bulk", requests, StudentImportResult.class);
+
+        assertThat(result.getImported()).isEqualTo(1000);
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1000);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(100);
+    }
+
+    @Test
+    void exportRosterKeepsIdOrderAcrossChunks() {
+        Faculty faculty = facultyRepository.save(new Faculty(0, "Когтевран", "Синий"));
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            students.add(new Student(0, "Студент списка " + i, 16 + i % 10, i % 2 == 0 ? faculty : null));
+        }
+        studentRepository.saveAll(students);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/student/roster", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType().isCompatibleWith(MediaType.valueOf("text/csv"))).isTrue();
+        String[] lines = response.getBody().split("\r\n");
+        assertThat(lines).hasSize(2501);
+        assertThat(lines[0]).isEqualTo("name,age,faculty");
+        for (int i = 0; i < 2500; i++) {
+            assertThat(lines[i + 1]).isEqualTo("Студент списка " + i + "," + (16 + i % 10) + ","
+                    + (i % 2 == 0 ? "Когтевран" : ""));
+        }
+    }
+
+    @Test
+    void exportRosterRoundTripsThroughImport() {
+        Faculty faculty = facultyRepository.save(new Faculty(0, "Гриффиндор; старший курс", "Красный"));
+        List<String> names = List.of("Уизли, Рональд", "Гермиона; Грейнджер", "Гарри \"Избранный\" Поттер",
+                "Невилл\nЛонгботтом");
+        for (String name : names) {
+            studentRepository.save(new Student(0, name, 17, faculty));
+        }
+
+        String roster = restTemplate.getForObject("/student/roster", String.class);
+        studentRepository.deleteAll();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+        StudentImportResult result = restTemplate.postForObject("/student/bulk", new HttpEntity<>(roster, headers),
+                StudentImportResult.class);
+
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(result.getImported()).isEqualTo(names.size());
+        assertThat(studentRepository.findAll())
+                .allSatisfy(student -> assertThat(student.getFaculty().getId()).isEqualTo(faculty.getId()))
+                .extracting(Student::getName)
+                .containsExactlyInAnyOrderElementsOf(names);
+    }
+
+    @Test
+    void exportStudentsAsNdjsonWithoutLoadingEntities() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Faculty faculty = facultyRepository.save(new Faculty(0, "Слизерин", "Зеленый"));
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            students.add(new Student(0, "Студент выгрузки " + i, 16 + i % 10, i % 3 == 0 ? null : faculty));
+        }
+        studentRepository.saveAll(students);
+
+        statistics.clear();
+        ResponseEntity<String> response = restTemplate.getForEntity("/student/export", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType().isCompatibleWith(MediaType.valueOf("application/x-ndjson")))
+                .isTrue();
+        String[] lines = response.getBody().split("\n");
+        assertThat(lines).hasSize(1200);
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode node = objectMapper.readTree(lines[i]);
+            assertThat(node.get("name").asText()).isEqualTo("Студент выгрузки " + i);
+            assertThat(node.get("faculty").isNull()).isEqualTo(i % 3 == 0);
+        }
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void exportStudentsAsCsv() {
+        Faculty faculty = facultyRepository.save(new Faculty(0, "Гриффиндор, старший курс", "Красный"));
+        Student student = studentRepository.save(new Student(0, "Рональд \"Рон\" Уизли", 17, faculty));
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/student/export?format=csv", String.class);
+        ResponseEntity<String> unknown = restTemplate.getForEntity("/student/export?format=xml", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo("id,name,age,faculty\r\n" + student.getId()
+                + ",\"Рональд \"\"Рон\"\" Уизли\",17,\"Гриффиндор, старший курс\"\r\n");
+        assertThat(unknown.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private static StudentCreateRequest createRequest(String name, int age, String faculty) {
+        StudentCreateRequest request = new StudentCreateRequest();
+        request.setName(name);
+        request.setAge(age);
+        request.setFaculty(faculty);
+        return request;
+    }
+
+    private void saveStudents(String namePrefix, int age, int count) {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            students.add(new Student(0, namePrefix + " " + i, age));
+        }
+        studentRepository.saveAll(students);
+    }
+
+    @Test
+    void getStudentsByIdsKeepsRequestOrderInOneQuery() {
+        Faculty faculty = facultyRepository.save(new Faculty(0, "Пакетный", "Серый"));
+        Student first = studentRepository.save(new Student(0, "Пакетный первый", 17, faculty));
+        Student second = studentRepository.save(new Student(0, "Пакетный второй", 18, faculty));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+
+        statistics.clear();
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity(
+                "/student/batch?ids=" + second.getId() + "," + Long.MAX_VALUE + "," + first.getId() + ","
+                        + second.getId(), JsonNode.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        JsonNode items = response.getBody().get("items");
+        assertThat(items).hasSize(2);
+        assertThat(items.get(0).get("name").asText()).isEqualTo("Пакетный второй");
+        assertThat(items.get(1).get("name").asText()).isEqualTo("Пакетный первый");
+        assertThat(response.getBody().get("missingIds")).hasSize(1);
+        assertThat(response.getBody().get("missingIds").get(0).asLong()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void getStudentsByIdsRejectsTooLongList() {
+        StringBuilder ids = new StringBuilder("1");
+        for (int id = 2; id <= 1001; id++) {
+            ids.append(',').append(id);
+        }
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/student/batch?ids=" + ids, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void editStudentWithVersionIsSingleUpdate() {
+        Faculty faculty = facultyRepository.save(new Faculty(0, "Когтевран", "Синий"));
+        Student saved = studentRepository.save(new Student(0, "Падма Патил", 17, faculty));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        ResponseEntity<Student> response = restTemplate.exchange("/student", HttpMethod.PUT,
+                new HttpEntity<>(editRequest(saved.getId(), "Парвати Патил", "Синий", saved.getVersion())),
+                Student.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(response.getBody().getVersion()).isEqualTo(saved.getVersion() + 1);
+        Student stored = studentRepository.findById(saved.getId()).orElseThrow();
+        assertThat(stored.getName()).isEqualTo("Парвати Патил");
+        assertThat(stored.getVersion()).isEqualTo(saved.getVersion() + 1);
+        assertThat(restTemplate.getForObject("/student/names/startWith?letter=Пар", String[].class))
+                .containsExactly("ПАРВАТИ ПАТИЛ");
+    }
+
+    @Test
+    void editStudentWithStaleVersionConflicts() {
+        Faculty faculty = facultyRepository.save(new Faculty(0, "Когтевран", "Синий"));
+        Student saved = studentRepository.save(new Student(0, "Падма Патил", 17, faculty));
+
+        ResponseEntity<String> stale = restTemplate.exchange("/student", HttpMethod.PUT,
+                new HttpEntity<>(editRequest(saved.getId(), "Парвати Патил", "Синий", saved.getVersion() + 5)),
+                String.class);
+        ResponseEntity<String> missing = restTemplate.exchange("/student", HttpMethod.PUT,
+                new HttpEntity<>(editRequest(Long.MAX_VALUE, "Парвати Патил", "Синий", null)),
+                String.class);
+
+        assertThat(stale.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(studentRepository.findById(saved.getId()).orElseThrow().getName()).isEqualTo("Падма Патил");
+    }
+
+    @Test
+    void deleteStudentWithoutReadingIt() {
+        Student saved = studentRepository.save(new Student(0, "Удаляемый без чтения", 25));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        ResponseEntity<Void> deleted = restTemplate.exchange("/student/" + saved.getId(), HttpMethod.DELETE,
+                null, Void.class);
+        long statements = statistics.getPrepareStatementCount();
+        ResponseEntity<String> missing = restTemplate.exchange("/student/" + saved.getId(), HttpMethod.DELETE,
+                null, String.class);
+
+        assertThat(deleted.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(statements).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(restTemplate.getForObject("/student/count", Long.class)).isZero();
+    }
+
+    private static StudentEditRequest editRequest(long id, String name, String faculty, Long version) {
+        StudentEditRequest request = new StudentEditRequest();
+        request.setId(id);
+        request.setName(name);
+        request.setAge(17);
+        request.setFaculty(faculty);
+        request.setVersion(version);
+        return request;
+    }
+}
@@ -8,15 +8,21 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.hogwarts.school.controller.StudentController;
+import ru.hogwarts.school.dto.CursorPage;
 import ru.hogwarts.school.dto.StudentCreateRequest;
 import ru.hogwarts.school.dto.StudentEditRequest;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.service.FacultyService;
+import ru.hogwarts.school.service.RosterExportService;
+import ru.hogwarts.school.service.StudentExportService;
+import ru.hogwarts.school.service.StudentImportService;
 import ru.hogwarts.school.service.StudentService;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -33,6 +39,15 @@ public class StudentControllerWebMvcTest {
     @MockBean
     private FacultyService facultyService;
 
+    @MockBean
+    private StudentImportService studentImportService;
+
+    @MockBean
+    private RosterExportService rosterExportService;
+
+    @MockBean
+    private StudentExportService studentExportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -62,9 +77,12 @@ public class StudentControllerWebMvcTest {
         Faculty faculty = new Faculty(1, "Гриффиндор", "Красный", null);
         Student student = new Student(id, "Полученный студент", 20, faculty);
 
-        Mockito.when(studentService.findStudent(id)).thenReturn(student);
+        Mockito.when(studentService.findStudentAsync(id)).thenReturn(CompletableFuture.completedFuture(student));
 
-        mockMvc.perform(get("/student/{id}", id))
+        MvcResult result = mockMvc.perform(get("/student/{id}", id))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name").value("Полученный студент"));
     }
@@ -80,7 +98,8 @@ public class StudentControllerWebMvcTest {
         Faculty faculty = new Faculty(2, "Пуффендуй", "Желтый", null);
         Student student = new Student(1, request.getName(), request.getAge(), faculty);
 
-        Mockito.when(studentService.editStudent(request.getId(), request.getName(), request.getAge(), request.getFaculty()))
+        Mockito.when(studentService.editStudent(request.getId(), request.getName(), request.getAge(), request.getFaculty(),
+                request.getVersion()))
                 .thenReturn(student);
 
         mockMvc.perform(put("/student")
@@ -104,11 +123,12 @@ public class StudentControllerWebMvcTest {
         Faculty faculty = new Faculty(1, "Гриффиндор", "Красный", null);
         Student student = new Student(1, "Студент", age, faculty);
 
-        Mockito.when(studentService.findStudentsByAge(age)).thenReturn(List.of(student));
+        Mockito.when(studentService.findStudentsByAge(age, null, 20))
+                .thenReturn(new CursorPage<>(List.of(student), null));
 
         mockMvc.perform(get("/student").param("age", String.valueOf(age)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].name").value("Студент"));
+                .andExpect(jsonPath("$.items[0].name").value("Студент"));
     }
 
     @Test
@@ -119,15 +139,18 @@ public class StudentControllerWebMvcTest {
         Student student1 = new Student(1, "Студент младший", 19, faculty);
         Student student2 = new Student(2, "Студент старший", 23, faculty);
 
-        Mockito.when(studentService.findStudentsByAgeBetween(minAge, maxAge))
-                .thenReturn(List.of(student1, student2));
+        Mockito.when(studentService.findStudentsByAgeBetweenAsync(minAge, maxAge, null, 20))
+                .thenReturn(CompletableFuture.completedFuture(new CursorPage<>(List.of(student1, student2), null)));
 
-        mockMvc.perform(get("/student/ageBetween")
+        MvcResult result = mockMvc.perform(get("/student/ageBetween")
                         .param("min", String.valueOf(minAge))
                         .param("max", String.valueOf(maxAge)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].name").value("Студент младший"))
-                .andExpect(jsonPath("$[1].name").value("Студент старший"));
+                .andExpect(jsonPath("$.items[0].name").value("Студент младший"))
+                .andExpect(jsonPath("$.items[1].name").value("Студент старший"));
     }
 
     @Test
@@ -135,9 +158,13 @@ public class StudentControllerWebMvcTest {
         Long studentId = 1L;
         Faculty faculty = new Faculty(1, "Гриффиндор", "Красный", null);
 
-        Mockito.when(studentService.getFacultyByStudentId(studentId)).thenReturn(faculty);
+        Mockito.when(studentService.getFacultyByStudentIdAsync(studentId))
+                .thenReturn(CompletableFuture.completedFuture(faculty));
 
-        mockMvc.perform(get("/student/{id}/faculty", studentId))
+        MvcResult result = mockMvc.perform(get("/student/{id}/faculty", studentId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name").value("Гриффиндор"))
                 .andExpect(jsonPath("$.color").value("Красный"));
@@ -0,0 +1,17 @@
+package ru.hogwarts.school;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+@EnabledForJreRange(min = JRE.JAVA_21)
+@ActiveProfiles({"test", "virtual"})
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:load-virtual;DB_CLOSE_DELAY=-1")
+public class VirtualThreadsLoadTest extends RequestThreadsLoadTest {
+
+    @Override
+    protected String mode() {
+        return "virtual threads";
+    }
+}